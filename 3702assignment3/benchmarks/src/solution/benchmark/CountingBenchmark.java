@@ -0,0 +1,147 @@
+package solution.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import solution.ADTree;
+import solution.BayesianNetwork;
+import solution.Dataset;
+import solution.Node;
+
+/**
+ * Count queries of up to four variables, straight on the data, through
+ * the network's count cache and through an AD-tree.
+ *
+ * Each call answers the next of a fixed set of random queries, so the
+ * cache and tree are warm after the first pass through the set.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CountingBenchmark {
+	private final static int NUM_QUERIES = 256;
+
+	private BayesianNetwork bayonet;
+	private Dataset data;
+	private ADTree tree;
+
+	private int[][] trueVars;
+	private int[][] falseVars;
+	private List<List<Node>> trueLists;
+	private List<List<Node>> falseLists;
+	private int[] familyChild;
+	private int[][] familyParents;
+	private int next;
+
+
+	@Setup
+	public void read(DatasetState state) {
+		bayonet = state.read();
+		data = bayonet.getData();
+		tree = new ADTree(data);
+
+		Random random = new Random(3702);
+		int numVariables = data.getNumVariables();
+		trueVars = new int[NUM_QUERIES][];
+		falseVars = new int[NUM_QUERIES][];
+		trueLists = new ArrayList<List<Node>>(NUM_QUERIES);
+		falseLists = new ArrayList<List<Node>>(NUM_QUERIES);
+		familyChild = new int[NUM_QUERIES];
+		familyParents = new int[NUM_QUERIES][];
+
+		for (int q = 0; q < NUM_QUERIES; q++) {
+			// Up to four different variables, each true or false
+			List<Node> trueList = new ArrayList<Node>();
+			List<Node> falseList = new ArrayList<Node>();
+			boolean[] used = new boolean[numVariables];
+			int size = 1 + random.nextInt(Math.min(4, numVariables));
+			while (trueList.size() + falseList.size() < size) {
+				int v = random.nextInt(numVariables);
+				if (!used[v]) {
+					used[v] = true;
+					(random.nextBoolean() ? trueList : falseList).add(bayonet.getNodeByIndex(v));
+				}
+			}
+
+			trueLists.add(trueList);
+			falseLists.add(falseList);
+			trueVars[q] = indexes(trueList);
+			falseVars[q] = indexes(falseList);
+
+			// A family of a variable not in the query, with the query's
+			// variables as parents
+			familyChild[q] = 0;
+			while (familyChild[q] < numVariables - 1 && used[familyChild[q]]) {
+				familyChild[q]++;
+			}
+			familyParents[q] = used[familyChild[q]] ? new int[0] : indexes(trueList, falseList);
+		}
+	}
+
+	@Benchmark
+	public int datasetCount() {
+		int q = nextQuery();
+		return data.count(trueVars[q], falseVars[q]);
+	}
+
+	@Benchmark
+	public int countBooleanData() {
+		int q = nextQuery();
+		return bayonet.countBooleanData(trueLists.get(q), falseLists.get(q));
+	}
+
+	@Benchmark
+	public int adTreeCount() {
+		int q = nextQuery();
+		return tree.count(trueVars[q], falseVars[q]);
+	}
+
+	@Benchmark
+	public int[] countFamily() {
+		int q = nextQuery();
+		return data.countFamily(familyChild[q], familyParents[q]);
+	}
+
+	@Benchmark
+	public int[][] countPairs() {
+		return data.countPairs();
+	}
+
+
+	private int nextQuery() {
+		next = (next + 1) % NUM_QUERIES;
+		return next;
+	}
+
+	private static int[] indexes(List<Node> nodes) {
+		int[] indexes = new int[nodes.size()];
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = nodes.get(i).getIndex();
+		}
+		return indexes;
+	}
+
+	private static int[] indexes(List<Node> nodes1, List<Node> nodes2) {
+		List<Node> both = new ArrayList<Node>(nodes1);
+		both.addAll(nodes2);
+		return indexes(both);
+	}
+}
@@ -0,0 +1,123 @@
+package solution.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import solution.BayesianNetwork;
+import solution.Global;
+import solution.Reader;
+
+/**
+ * The data file every benchmark runs over: one of the shipped data sets,
+ * or a synthetic one of a given size made for the run.
+ *
+ * Shipped data sets are read from dataDirectory, which is relative to
+ * where the benchmarks are run from. Every benchmark depends on this
+ * state, so it also turns logging down to errors, keeping console output
+ * out of the measurements.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+@State(Scope.Benchmark)
+public class DatasetState {
+	/** Name given as the dataset parameter for generated data **/
+	public final static String SYNTHETIC = "synthetic";
+
+	/** Shipped data sets which give no node parents **/
+	private final static Set<String> NO_PARENTS = new HashSet<String>(Arrays.asList(
+			"noMissingData-d1", "noMissingData-d2", "noMissingData-d3",
+			"thread311-d1", "thread374-d1", "thread374-d2", "thread374-d3", "thread374-d4"));
+
+	@Param({"LectureExample", "CPTNoMissingData-d2", "CPTNoMissingData-d3", "thread309-d2",
+			"noMissingData-d3", "thread374-d2", SYNTHETIC})
+	public String dataset;
+
+	@Param("data")
+	public String dataDirectory;
+
+	/** Size of the synthetic data set **/
+	@Param("100000")
+	public int syntheticRows;
+
+	@Param("16")
+	public int syntheticVariables;
+
+	/** Path of the data file, and whether it lists parents **/
+	public String path;
+	public boolean withParents;
+
+	private File synthetic;
+
+
+	@Setup
+	public void createFile() throws IOException {
+		Global.configureLogging("ERROR");
+
+		if (dataset.equals(SYNTHETIC)) {
+			synthetic = writeSynthetic(syntheticVariables, syntheticRows);
+			path = synthetic.getPath();
+			withParents = true;
+		} else {
+			path = dataDirectory + "/" + dataset + ".txt";
+			withParents = !NO_PARENTS.contains(dataset);
+		}
+	}
+
+	@TearDown
+	public void deleteFile() {
+		if (synthetic != null) {
+			synthetic.delete();
+		}
+	}
+
+	/**
+	 * @return A new network read from the data file
+	 */
+	public BayesianNetwork read() {
+		return withParents ? Reader.readFile(path) : Reader.readFileNoParents(path);
+	}
+
+
+	/**
+	 * Writes random rows, with each node's parent being the node before
+	 * it, so there are families to count and score.
+	 */
+	private static File writeSynthetic(int numVariables, int numRows) throws IOException {
+		File file = File.createTempFile("synthetic-" + numVariables + "-" + numRows + "-", ".txt");
+		file.deleteOnExit();
+
+		Random random = new Random(3702);
+		BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+		try {
+			writer.write(numVariables + " " + numRows + "\n");
+			for (int v = 0; v < numVariables; v++) {
+				writer.write((v == 0) ? "V0\n" : "V" + v + " V" + (v - 1) + "\n");
+			}
+
+			char[] row = new char[numVariables * 2];
+			for (int i = 0; i < numRows; i++) {
+				for (int v = 0; v < numVariables; v++) {
+					row[2 * v] = random.nextBoolean() ? '1' : '0';
+					row[2 * v + 1] = (v == numVariables - 1) ? '\n' : ' ';
+				}
+				writer.write(row);
+			}
+		} finally {
+			writer.close();
+		}
+
+		return file;
+	}
+}
@@ -0,0 +1,61 @@
+package solution.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import solution.BayesianNetwork;
+import solution.Reader;
+import solution.Writer;
+
+/**
+ * Time taken to load each data set, from the text format and from the
+ * memory mapped binary format.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReaderBenchmark {
+
+	private File binary;
+
+
+	@Setup
+	public void convert(DatasetState data) throws IOException {
+		binary = File.createTempFile(data.dataset + "-", ".bin");
+		binary.deleteOnExit();
+		Writer.writeBinary(binary.getPath(), data.read());
+	}
+
+	@TearDown
+	public void delete() {
+		binary.delete();
+	}
+
+	@Benchmark
+	public BayesianNetwork readText(DatasetState data) {
+		return data.read();
+	}
+
+	@Benchmark
+	public BayesianNetwork readBinary(DatasetState data) {
+		return Reader.readBinaryFile(binary.getPath(), data.withParents);
+	}
+}
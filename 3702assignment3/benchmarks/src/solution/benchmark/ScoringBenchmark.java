@@ -0,0 +1,78 @@
+package solution.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import solution.BayesianNetwork;
+import solution.ChowLiuTree;
+import solution.Node;
+
+/**
+ * Scoring a whole network and building every CPT, with the family caches
+ * already full (as during search) and from an empty network each time
+ * (as in task1 and task2).
+ *
+ * Data sets which give no parents are scored with their Chow-Liu tree,
+ * so there are families to count.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ScoringBenchmark {
+
+	private BayesianNetwork bayonet;
+
+
+	@Setup
+	public void read(DatasetState state) {
+		bayonet = state.read();
+		if (!state.withParents) {
+			ChowLiuTree.createTree(bayonet);
+		}
+	}
+
+	@Benchmark
+	public double calculateScoreCached() {
+		return bayonet.calculateScore();
+	}
+
+	@Benchmark
+	public double calculateScoreUncached() {
+		return fresh().calculateScore();
+	}
+
+	@Benchmark
+	public void getAllProbabilities(Blackhole hole) {
+		BayesianNetwork network = fresh();
+		for (Map.Entry<String, Node> nodeElement : network.getNodes().entrySet()) {
+			List<Double> probabilities = network.getAllProbabilities(nodeElement.getValue());
+			hole.consume(probabilities);
+		}
+	}
+
+
+	/**
+	 * @return A network with the same nodes and data, but no cached counts
+	 */
+	private BayesianNetwork fresh() {
+		return new BayesianNetwork(bayonet.getNodes(), bayonet.getData());
+	}
+}
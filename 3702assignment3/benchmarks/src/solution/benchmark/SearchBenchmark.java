@@ -0,0 +1,55 @@
+package solution.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import solution.BayesianNetwork;
+import solution.Main;
+
+/**
+ * A whole structure search, from an empty network (task4) or from the
+ * Chow-Liu tree (task7), until no move improves the score.
+ *
+ * Every search starts from a newly read network, so no counts are cached.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+	@Param({"task4", "task7"})
+	public String mode;
+
+	@Param({"1", "4"})
+	public int threads;
+
+	private BayesianNetwork bayonet;
+
+
+	@Setup(Level.Invocation)
+	public void read(DatasetState state) {
+		bayonet = state.read();
+	}
+
+	@Benchmark
+	public BayesianNetwork createDAG() {
+		return Main.createDAG(bayonet, mode, threads);
+	}
+}
@@ -0,0 +1,295 @@
+package solution;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An all-dimensions tree (AD-tree) over a data table, which answers count
+ * queries by following a path of precomputed counts instead of scanning
+ * the rows.
+ *
+ * Each tree node is the set of rows matching some assignment of variables,
+ * and has a vary node for every later variable, splitting its rows by that
+ * variable's value. Only the less common value gets a child, since the
+ * other's counts can be found by subtraction. Nodes with few enough rows
+ * are kept as leaf lists, which are scanned directly rather than split.
+ * Other nodes keep only their count and the assignment they match, and
+ * find their rows from the packed columns when a vary node is built, so
+ * row lists never take more than the leaf threshold per node.
+ *
+ * A full tree over more than a handful of variables would not fit in
+ * memory, so vary nodes are built the first time a query needs them. After
+ * that, a query costs the same however many rows there are. The tree is
+ * safe to share between threads.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class ADTree {
+	/** Default largest number of rows kept as a leaf list **/
+	public final static int DEFAULT_LEAF_THRESHOLD = 16;
+
+	private final Dataset data;
+	private final int leafThreshold;
+	private final ADNode root;
+
+	/** Number of tree nodes built so far **/
+	private final AtomicInteger numNodes = new AtomicInteger();
+
+
+	public ADTree(Dataset data) {
+		this(data, DEFAULT_LEAF_THRESHOLD);
+	}
+
+	/**
+	 * @param data - Data to index
+	 * @param leafThreshold - Nodes with this many rows or fewer are
+	 * scanned instead of split further
+	 */
+	public ADTree(Dataset data, int leafThreshold) {
+		this.data = data;
+		this.leafThreshold = leafThreshold;
+
+		this.root = new ADNode(-1, new int[0], new boolean[0], data.getNumRows());
+	}
+
+	/**
+	 * Returns the amount of rows in data where every variable in trueVars
+	 * is true and every variable in falseVars is false.
+	 *
+	 * @param trueVars - Indexes of variables which must be true
+	 * @param falseVars - Indexes of variables which must be false
+	 * @return Amount of rows matching
+	 */
+	public int count(int[] trueVars, int[] falseVars) {
+		// The assignment as a value per variable, in variable order
+		int numVariables = data.getNumVariables();
+		byte[] values = new byte[numVariables];
+		for (int v : trueVars) {
+			values[v] = 2;
+		}
+		for (int v : falseVars) {
+			if (values[v] == 2) {
+				return 0; // Can't be both
+			}
+			values[v] = 1;
+		}
+
+		int size = 0;
+		int[] vars = new int[trueVars.length + falseVars.length];
+		boolean[] vals = new boolean[vars.length];
+		for (int v = 0; v < numVariables; v++) {
+			if (values[v] != 0) {
+				vars[size] = v;
+				vals[size] = values[v] == 2;
+				size++;
+			}
+		}
+
+		return count(root, vars, vals, 0, size);
+	}
+
+	/**
+	 * Counts every combination of a child and its parents, in the same
+	 * order as Dataset.countFamily.
+	 *
+	 * @param variable - Index of the child variable
+	 * @param parents - Indexes of the parent variables, first is highest bit
+	 * @return Counts indexed by (parent combination << 1) | child value
+	 */
+	public int[] countFamily(int variable, int[] parents) {
+		int[] counts = new int[2 << parents.length];
+		int[] trueVars = new int[parents.length + 1];
+		int[] falseVars = new int[parents.length + 1];
+
+		for (int index = 0; index < counts.length; index++) {
+			int numTrue = 0;
+			int numFalse = 0;
+			for (int p = 0; p <= parents.length; p++) {
+				int v = (p < parents.length) ? parents[p] : variable;
+				if (((index >>> (parents.length - p)) & 1) == 1) {
+					trueVars[numTrue++] = v;
+				} else {
+					falseVars[numFalse++] = v;
+				}
+			}
+			counts[index] = count(copyOf(trueVars, numTrue), copyOf(falseVars, numFalse));
+		}
+
+		return counts;
+	}
+
+	/**
+	 * @return Number of tree nodes built so far
+	 */
+	public int size() {
+		return numNodes.get();
+	}
+
+	public String toString() {
+		return "ADTree(" + numNodes.get() + " nodes, leaf threshold " + leafThreshold + ")";
+	}
+
+
+	/**
+	 * Counts the rows of a node matching the conditions from position k
+	 * onwards, which are in increasing variable order and all after the
+	 * node's own variable.
+	 */
+	private int count(ADNode node, int[] vars, boolean[] vals, int k, int size) {
+		if (k == size) {
+			return node.count;
+		}
+
+		if (node.rows != null) {
+			int count = 0;
+			for (int row : node.rows) {
+				boolean match = true;
+				for (int i = k; i < size && match; i++) {
+					match = data.get(row, vars[i]) == vals[i];
+				}
+				if (match) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		VaryNode vary = node.getVary(vars[k]);
+		int rareCount = (vary.rare == null) ? 0 : count(vary.rare, vars, vals, k + 1, size);
+		if (vals[k] != vary.commonValue) {
+			return rareCount;
+		}
+
+		// Rows with the common value are every row, less those with the rare one
+		return count(node, vars, vals, k + 1, size) - rareCount;
+	}
+
+	private static int[] copyOf(int[] array, int length) {
+		int[] copy = new int[length];
+		System.arraycopy(array, 0, copy, 0, length);
+		return copy;
+	}
+
+
+	/**
+	 * @return Bits of the rows in one word of the data matching every
+	 * condition of an assignment
+	 */
+	private long matchWord(int[] vars, boolean[] vals, int word) {
+		long match = -1L;
+		for (int i = 0; i < vars.length; i++) {
+			long bits = data.getWord(vars[i], word);
+			match &= vals[i] ? bits : ~bits;
+		}
+
+		// The last word may have bits past the last row
+		int tail = data.getNumRows() - (word << 6);
+		if (tail < 64) {
+			match &= (1L << tail) - 1;
+		}
+		return match;
+	}
+
+	/**
+	 * @return The indexes of the rows matching an assignment
+	 */
+	private int[] findRows(int[] vars, boolean[] vals, int count) {
+		int[] rows = new int[count];
+		int r = 0;
+		for (int word = 0; word < data.getNumWords(); word++) {
+			long match = matchWord(vars, vals, word);
+			while (match != 0) {
+				rows[r++] = (word << 6) + Long.numberOfTrailingZeros(match);
+				match &= match - 1;
+			}
+		}
+		return rows;
+	}
+
+
+	/**
+	 * The rows matching an assignment, ending with some variable.
+	 */
+	private class ADNode {
+		private final int variable;
+
+		/** The assignment this node's rows match, in variable order **/
+		private final int[] vars;
+		private final boolean[] vals;
+
+		/** Number of rows, and the rows themselves if few enough to be a leaf **/
+		private final int count;
+		private final int[] rows;
+
+		/** Vary node for each later variable, built when first needed **/
+		private final AtomicReferenceArray<VaryNode> vary;
+
+		ADNode(int variable, int[] vars, boolean[] vals, int count) {
+			this.variable = variable;
+			this.vars = vars;
+			this.vals = vals;
+			this.count = count;
+			if (count <= leafThreshold) {
+				this.rows = findRows(vars, vals, count);
+				this.vary = null;
+			} else {
+				this.rows = null;
+				this.vary = new AtomicReferenceArray<VaryNode>(data.getNumVariables() - variable - 1);
+			}
+			numNodes.incrementAndGet();
+		}
+
+		/**
+		 * @param split - A variable after this node's
+		 * @return This node's rows split by the value of that variable
+		 */
+		VaryNode getVary(int split) {
+			int i = split - variable - 1;
+			VaryNode result = vary.get(i);
+			if (result == null) {
+				// Two threads may both build it, but only one is kept
+				result = new VaryNode(this, split);
+				if (!vary.compareAndSet(i, null, result)) {
+					result = vary.get(i);
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * A node's rows split by the value of one variable. Only the rows with
+	 * the less common value are kept.
+	 */
+	private class VaryNode {
+		private final boolean commonValue;
+
+		/** The rows with the less common value, or null if there are none **/
+		private final ADNode rare;
+
+		VaryNode(ADNode parent, int split) {
+			int numTrue = 0;
+			for (int word = 0; word < data.getNumWords(); word++) {
+				numTrue += Long.bitCount(matchWord(parent.vars, parent.vals, word) & data.getWord(split, word));
+			}
+
+			commonValue = numTrue * 2 >= parent.count;
+			int rareCount = commonValue ? parent.count - numTrue : numTrue;
+			if (rareCount == 0) {
+				rare = null;
+				return;
+			}
+
+			// The rare child matches the parent's assignment and the rare value
+			int depth = parent.vars.length;
+			int[] vars = new int[depth + 1];
+			boolean[] vals = new boolean[depth + 1];
+			System.arraycopy(parent.vars, 0, vars, 0, depth);
+			System.arraycopy(parent.vals, 0, vals, 0, depth);
+			vars[depth] = split;
+			vals[depth] = !commonValue;
+
+			rare = new ADNode(split, vars, vals, rareCount);
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package solution;
+
+/**
+ * Akaike information criterion: the log likelihood of each family, minus
+ * one for each free parameter. Penalises extra parents less than BIC once
+ * there are more than e^2 rows.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class AICScore implements ScoringFunction {
+
+	@Override
+	public double scoreFamily(int[] familyCounts, int numRows) {
+		int parameters = familyCounts.length / 2;
+		return LogLikelihoodScore.logLikelihood(familyCounts) - parameters;
+	}
+
+	public String toString() {
+		return "AIC";
+	}
+}
@@ -0,0 +1,82 @@
+package solution;
+
+/**
+ * Bayesian Dirichlet equivalent uniform score: the log of the probability
+ * of the data given the structure, with a uniform Dirichlet prior over
+ * every CPT that adds up to an equivalent sample size.
+ *
+ * For a family with q parent combinations, each combination j seen N_j
+ * times (N_jk with the node having value k) adds
+ * lgamma(a / q) - lgamma(a / q + N_j)
+ * + sum over k of lgamma(a / 2q + N_jk) - lgamma(a / 2q).
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class BDeuScore implements ScoringFunction {
+	/** Lanczos approximation coefficients, for g = 7 **/
+	private final static double[] LANCZOS = {
+		0.99999999999980993, 676.5203681218851, -1259.1392167224028,
+		771.32342877765313, -176.61502916214059, 12.507343278686905,
+		-0.13857109526572012, 9.9843695780195716e-6, 1.5056327351493116e-7
+	};
+
+	private final double equivalentSampleSize;
+
+
+	public BDeuScore() {
+		this(1);
+	}
+
+	/**
+	 * @param equivalentSampleSize - Total weight of the prior
+	 */
+	public BDeuScore(double equivalentSampleSize) {
+		this.equivalentSampleSize = equivalentSampleSize;
+	}
+
+	@Override
+	public double scoreFamily(int[] familyCounts, int numRows) {
+		int combinations = familyCounts.length / 2;
+		double combinationPrior = equivalentSampleSize / combinations;
+		double valuePrior = combinationPrior / 2;
+
+		double score = 0;
+		for (int combination = 0; combination < combinations; combination++) {
+			int falseCount = familyCounts[2 * combination];
+			int trueCount = familyCounts[2 * combination + 1];
+
+			// Combinations which never occur add nothing
+			if (falseCount + trueCount == 0) {
+				continue;
+			}
+
+			score += logGamma(combinationPrior) - logGamma(combinationPrior + falseCount + trueCount);
+			score += logGamma(valuePrior + falseCount) - logGamma(valuePrior);
+			score += logGamma(valuePrior + trueCount) - logGamma(valuePrior);
+		}
+
+		return score;
+	}
+
+	/**
+	 * @return The log of the gamma function, for x > 0
+	 */
+	static double logGamma(double x) {
+		if (x < 0.5) {
+			// Reflection formula, as the approximation needs x >= 0.5
+			return Math.log(Math.PI / Math.sin(Math.PI * x)) - logGamma(1 - x);
+		}
+
+		x -= 1;
+		double sum = LANCZOS[0];
+		for (int i = 1; i < LANCZOS.length; i++) {
+			sum += LANCZOS[i] / (x + i);
+		}
+		double t = x + 7.5;
+		return 0.5 * Math.log(2 * Math.PI) + (x + 0.5) * Math.log(t) - t + Math.log(sum);
+	}
+
+	public String toString() {
+		return "BDeu(" + equivalentSampleSize + ")";
+	}
+}
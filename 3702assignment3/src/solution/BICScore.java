@@ -0,0 +1,22 @@
+package solution;
+
+/**
+ * Bayesian information criterion: the log likelihood of each family, minus
+ * half the log of the number of rows for each free parameter. A boolean
+ * node has one free parameter per combination of its parents.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class BICScore implements ScoringFunction {
+
+	@Override
+	public double scoreFamily(int[] familyCounts, int numRows) {
+		int parameters = familyCounts.length / 2;
+		return LogLikelihoodScore.logLikelihood(familyCounts)
+				- 0.5 * Math.log(numRows) * parameters;
+	}
+
+	public String toString() {
+		return "BIC";
+	}
+}
@@ -1,9 +1,17 @@
 package solution;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Represents the Bayesian Network with nodes.
@@ -11,24 +19,62 @@ import java.util.Map;
  * 
  * @author Cameron Darragh Addison Gourluck
  */
-public class BayesianNetwork extends Global {
-	public final static int MODE = INFO; // Current debug mode
+public class BayesianNetwork extends Global implements NetworkStatistics {
+	private final static Logger LOG = getLogger(BayesianNetwork.class);
 	
 	/** The list of nodes in this network **/
 	private Map<String, Node> nodes;
 	
-	/** The data table of this network. Outer list is each row, 
-	 * inner list is each node **/
-	private List<List<Boolean>> data;
+	/** The data table of this network, one packed column per node **/
+	private Dataset data;
+	
+	/** Counts already made on the data. Shared by every copy of this
+	 * network, since they all share the same data **/
+	private CountCache counts;
+	
+	/** Optional index answering counts in place of the cache and data.
+	 * Shared by every copy of this network, like counts **/
+	private ADTree index;
+	
+	/** Log likelihood of each family scored so far. Shared by every copy
+	 * of this network (and every search thread), for the same reason as counts **/
+	private Map<Family, Double> familyLogLikelihoods;
+	
+	/** How networks are scored, and the score of each family scored so far.
+	 * Shared by every copy of this network, like familyLogLikelihoods **/
+	private ScoringFunction scoring;
+	private Map<Family, Double> familyScores;
 	
 	/** List of edges between nodes in the network. */
 	private List<Edge> edges;
 	
+	/** The same edges, indexed by parent index then child index **/
+	private Edge[][] edgeMatrix;
+	
+	/** Every node, by index **/
+	private Node[] nodesByIndex;
+	
+	/** Ancestors of each node (by index), kept up to date as edges change
+	 * so that cycles can be found without walking the graph **/
+	private BitSet[] ancestors;
 	
-	public BayesianNetwork(Map<String, Node> nodes, List<List<Boolean>> data) {
+	/** Probability table of each node (by index), and the parents
+	 * it was built for **/
+	private double[][] cpts;
+	private List<List<Node>> cptParents;
+	
+	
+	public BayesianNetwork(Map<String, Node> nodes, Dataset data) {
 		this.nodes = nodes;
 		this.data = data;
+		this.counts = new CountCache(data.getNumVariables());
+		this.familyLogLikelihoods = new ConcurrentHashMap<Family, Double>();
+		this.scoring = new LogLikelihoodScore();
+		this.familyScores = new ConcurrentHashMap<Family, Double>();
 		this.edges = new ArrayList<Edge>();
+		this.edgeMatrix = new Edge[data.getNumVariables()][data.getNumVariables()];
+		initialiseCPTs();
+		initialiseAncestors();
 	}
 	
 	/**
@@ -42,7 +88,6 @@ public class BayesianNetwork extends Global {
 		
 		// Initialize lists
 		nodes = new HashMap<String, Node>((int)Math.ceil(bayonet.getNodes().size() / 0.75));
-		data = new ArrayList<List<Boolean>>();
 		edges = new ArrayList<Edge>();
 		
 		Map<String, Node> oldNodes = bayonet.getNodes();
@@ -58,8 +103,24 @@ public class BayesianNetwork extends Global {
 		
 		// Copy the data over (for now we never modify data, so this is fine)
 		data = bayonet.getData();
+		counts = bayonet.getCountCache();
+		index = bayonet.index;
+		familyLogLikelihoods = bayonet.familyLogLikelihoods;
+		scoring = bayonet.scoring;
+		familyScores = bayonet.familyScores;
+		edgeMatrix = new Edge[data.getNumVariables()][data.getNumVariables()];
+		initialiseCPTs();
+		
+		// Copy the parents over, in the same order
+		for (Map.Entry<String, Node> nodeElement : oldNodes.entrySet()) {
+			Node newNode = nodes.get(nodeElement.getKey());
+			for (Node parent : nodeElement.getValue().getParents()) {
+				newNode.addParent(nodes.get(parent.getName()));
+			}
+		}
 		
-		// Copy the edges over
+		// Copy the edges over. The old network is already valid, so there's
+		// no need to check each edge as addEdge does
 		List<Edge> oldEdges = bayonet.getEdges();
 		for (Edge edge : oldEdges) {
 			
@@ -67,27 +128,152 @@ public class BayesianNetwork extends Global {
 			Node newNode1 = nodes.get(edge.getParent().getName());
 			Node newNode2 = nodes.get(edge.getChild().getName());
 			
-			// Create the edge between these nodes
+			// Add the edge between these nodes to list of edges
 			Edge newEdge = new Edge(newNode1, newNode2);
-			
-			// Add new edge to list of edges
-			addEdge(newEdge);
+			edges.add(newEdge);
+			edgeMatrix[newNode1.getIndex()][newNode2.getIndex()] = newEdge;
 		}
 		
+		// Copy the ancestors over
+		nodesByIndex = new Node[data.getNumVariables()];
+		for (Node node : nodes.values()) {
+			nodesByIndex[node.getIndex()] = node;
+		}
+		ancestors = new BitSet[bayonet.ancestors.length];
+		for (int i = 0; i < ancestors.length; i++) {
+			ancestors[i] = (BitSet) bayonet.ancestors[i].clone();
+		}
+	}
+	
+	/**
+	 * Creates an empty table for every node, to be built when first needed
+	 */
+	private void initialiseCPTs() {
+		cpts = new double[data.getNumVariables()][];
+		cptParents = new ArrayList<List<Node>>(Collections.nCopies(cpts.length, (List<Node>) null));
+	}
+	
+	/**
+	 * Works out the ancestors of every node from scratch
+	 */
+	private void initialiseAncestors() {
+		nodesByIndex = new Node[data.getNumVariables()];
+		for (Node node : nodes.values()) {
+			nodesByIndex[node.getIndex()] = node;
+		}
 		
-		
-		for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
-			
-			Node node = nodeElement.getValue();
+		ancestors = new BitSet[nodesByIndex.length];
+		BitSet all = new BitSet();
+		for (int i = 0; i < ancestors.length; i++) {
+			ancestors[i] = new BitSet();
+			if (nodesByIndex[i] != null) {
+				all.set(i);
+			}
+		}
+		recalculateAncestors(all);
+	}
+	
+	/**
+	 * Works out the ancestors of the given nodes from scratch, by walking
+	 * up through their parents. The ancestors of any other node are
+	 * assumed to be correct already, so the walk stops at them.
+	 * 
+	 * @param affected - Indexes of the nodes to recalculate. Must include
+	 * every descendant of any node it includes.
+	 */
+	private void recalculateAncestors(BitSet affected) {
+		for (int i = affected.nextSetBit(0); i >= 0; i = affected.nextSetBit(i + 1)) {
+			BitSet result = new BitSet();
+			Deque<Node> toVisit = new ArrayDeque<Node>(nodesByIndex[i].getParents());
 			
-			String debugStr = node.getName() + ": ";
-			for(Node ancestor : node.getAncestors()) {
-				debugStr += ancestor.toString();
+			while (!toVisit.isEmpty()) {
+				Node ancestor = toVisit.pop();
+				int index = ancestor.getIndex();
+				if (result.get(index)) {
+					continue;
+				}
+				result.set(index);
+				
+				if (affected.get(index)) {
+					toVisit.addAll(ancestor.getParents());
+				} else {
+					result.or(ancestors[index]);
+				}
 			}
-			log(DEBUG, debugStr);
+			ancestors[i] = result;
 		}
 	}
 	
+	/**
+	 * Updates the ancestors after an edge from parent to child is added.
+	 * Everything at or below child gains parent and its ancestors.
+	 */
+	private void addAncestors(Node parent, Node child) {
+		BitSet added = (BitSet) ancestors[parent.getIndex()].clone();
+		added.set(parent.getIndex());
+		
+		for (int i = 0; i < ancestors.length; i++) {
+			if (i == child.getIndex() || ancestors[i].get(child.getIndex())) {
+				ancestors[i].or(added);
+			}
+		}
+	}
+	
+	/**
+	 * @return The indexes of child and everything below it
+	 */
+	private BitSet getDescendantsOf(Node child) {
+		BitSet descendants = new BitSet();
+		descendants.set(child.getIndex());
+		for (int i = 0; i < ancestors.length; i++) {
+			if (ancestors[i].get(child.getIndex())) {
+				descendants.set(i);
+			}
+		}
+		return descendants;
+	}
+	
+	/**
+	 * @return true if ancestor is an ancestor of node
+	 */
+	public boolean isAncestor(Node ancestor, Node node) {
+		return ancestors[node.getIndex()].get(ancestor.getIndex());
+	}
+	
+	/**
+	 * @return All ancestors of the node, in index order
+	 */
+	public List<Node> getAncestors(Node node) {
+		List<Node> result = new ArrayList<Node>();
+		BitSet set = ancestors[node.getIndex()];
+		for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+			result.add(nodesByIndex[i]);
+		}
+		return result;
+	}
+	
+	/**
+	 * Checks if adding an edge from parent to child would make a cycle,
+	 * which is when child is already parent or one of its ancestors.
+	 */
+	public boolean wouldCreateCycle(Node parent, Node child) {
+		return parent.equals(child) || isAncestor(child, parent);
+	}
+	
+	/**
+	 * Checks if reversing the edge would make a cycle, which is when there
+	 * is another path from its parent down to its child.
+	 */
+	public boolean wouldReverseCreateCycle(Edge edge) {
+		Node parent = edge.getParent();
+		for (Node other : edge.getChild().getParents()) {
+			if (!other.equals(parent) && isAncestor(parent, other)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
 	public List<Edge> getEdges() {
 		return edges;
 	}
@@ -105,27 +291,33 @@ public class BayesianNetwork extends Global {
 	}
 	
 	
+	public Node getNodeByIndex(int index) {
+		return nodesByIndex[index];
+	}
+	
+	
+	/**
+	 * Returns the edge in this network between the same nodes as the given
+	 * edge, which may come from a copy of this network.
+	 * 
+	 * @param oldEdge
+	 * @return The edge, or null if there isn't one
+	 */
 	public Edge getEquivalentEdge(Edge oldEdge) {
-		// Get name of each node in old edge
-		String oldEdgeParent = oldEdge.getParent().getName();
-		String oldEdgeChild = oldEdge.getChild().getName();
-		
-		Node parent = nodes.get(oldEdgeParent);
-		Node child = nodes.get(oldEdgeChild);
-		
-		// For each edge
-		for (Edge edge : edges) {
-		
-			// If edge has same nodes as given edge
-			if(edge.getChild().equals(child) && edge.getParent().equals(parent)) {
-		
-				// Return edge
-				return edge;
-			}
-		}
-		
-		// Return null if no edge found
-		return null;
+		return getEdge(oldEdge.getParent(), oldEdge.getChild());
+	}
+	
+	
+	/**
+	 * Looks up the edge from parent to child by the nodes' indexes, so the
+	 * nodes may come from a copy of this network.
+	 * 
+	 * @param parent
+	 * @param child
+	 * @return The edge, or null if there isn't one
+	 */
+	public Edge getEdge(Node parent, Node child) {
+		return edgeMatrix[parent.getIndex()][child.getIndex()];
 	}
 	
 	
@@ -136,43 +328,29 @@ public class BayesianNetwork extends Global {
 	 * @return Amount of rows where lists are valid
 	 */
 	public int countBooleanData(List<Node> trueList, List<Node> falseList) {
-		int count = 0; // Number of valid rows
-		
 		log(DEBUG, " ");
 		log(DEBUG, "Calculating boolean data");
 		
-		if (data.size() == 0) {
+		if (data.getNumRows() == 0) {
 			log(ERROR, "ERROR: No data found");
 			System.exit(1);
 		}
 		
-		// For each row in the data
-		for (List<Boolean> row : data) {
-			boolean valid = true;
-			
-			// If any nodes value in this row not true, discount the row
-			for (Node n : trueList) {
-				if (row.get(n.getIndex()) == false) {
-					valid = false;
-					break;
-				}
-			}
-			
-			// If any nodes value in this row not false, discount the row
-			for (Node n : falseList) {
-				if (row.get(n.getIndex()) == true) {
-					valid = false;
-					break;
-				}
-			}
-			
-			// If above loops were good, add one to count
-			if (valid) {
-				count++;
-			}
+		// Convert the lists to column indexes in the data
+		int[] trueVars = new int[trueList.size()];
+		for (int i = 0; i < trueVars.length; i++) {
+			trueVars[i] = trueList.get(i).getIndex();
 		}
+		int[] falseVars = new int[falseList.size()];
+		for (int i = 0; i < falseVars.length; i++) {
+			falseVars[i] = falseList.get(i).getIndex();
+		}
+		
+		// Number of valid rows
+		int count = (index != null) ? index.count(trueVars, falseVars)
+				: counts.count(data, trueVars, falseVars);
 		
-		log(DEBUG, "Count is " + count);
+		log(DEBUG, () -> "Count is " + count);
 		log(DEBUG, " ");
 		return count;
 	}
@@ -197,7 +375,7 @@ public class BayesianNetwork extends Global {
 		// Get total amount of data rows
 		int dataLength = data.size();
 		
-		log(INFO, "Calculating CPT of " + (node.toString()));
+		log(DEBUG, "Calculating CPT of " + (node.toString()));
 		
 		// If parents, get amount of data where this node == true AND parents == true
 		if (node.hasParents()) {
@@ -222,7 +400,7 @@ public class BayesianNetwork extends Global {
 			trueCount++;
 		}
 		
-		log(INFO, "Probability is " + (trueCount / dataLength));
+		log(DEBUG, "Probability is " + (trueCount / dataLength));
 		
 		// Return probability
 		return trueCount / dataLength;
@@ -235,462 +413,529 @@ public class BayesianNetwork extends Global {
 	 * 
 	 * Note: List size will always be 2^n, where n is the number of parents.
 	 * 
-	 * I've found a solution using recursion, which seems efficient enough.
-	 * See recursive method below
+	 * The list is ordered by reading each combination as a binary number,
+	 * with the first parent as the highest bit. e.g. for a node with three
+	 * parents the list will be probabilities of
+	 * [FFF, FFT, FTF, FTT, TFF, TFT, TTF, TTT].
 	 * 
 	 * @param node - The node to get all probabilities for
 	 * @return - All probabilities for that node
 	 */
 	public List<Double> getAllProbabilities(Node node) {
+		double[] cpt = getCPT(node);
 		
-		// Get parents of node
-		ArrayList<Node> parents = (ArrayList<Node>) node.getParents();
-		ArrayList<Node> trueList = new ArrayList<Node>();
-		ArrayList<Node> falseList = new ArrayList<Node>();
-		trueList.add(node);
-		
-		log(INFO, "About to create probability list for " + trueList);
-		
-		// Get list of every possible true/false combination of all parents
-		List<Double> probabilities = getRecursiveProbabilities(trueList, falseList, parents);
-		
-		log(INFO, "Finished creating probability list: " + probabilities.toString());
-		
+		List<Double> probabilities = new ArrayList<Double>(cpt.length);
+		for (double probability : cpt) {
+			probabilities.add(probability);
+		}
 		return probabilities;
 	}
 	
 	
-	private double getProbability(ArrayList<Node> trueList, ArrayList<Node> falseList) {
+	/**
+	 * Create a list of probabilities for all possible truth combinations
+	 * of the given parents, which need not be the node's current parents.
+	 * 
+	 * Every combination is counted in a single pass over the data.
+	 * 
+	 * @param node - The node to get all probabilities for
+	 * @param parents - The parents to condition on, in order
+	 * @return - All probabilities for that node
+	 */
+	public List<Double> getAllProbabilities(Node node, List<Node> parents) {
+		
+		log(DEBUG, () -> "About to create probability list for " + node);
 		
-		@SuppressWarnings("unchecked")
-		ArrayList<Node> temp = (ArrayList<Node>) trueList.clone();
-		if(temp.size() > 0) {
-			temp.remove(0);
+		int[] parentIndexes = new int[parents.size()];
+		for (int p = 0; p < parentIndexes.length; p++) {
+			parentIndexes[p] = parents.get(p).getIndex();
 		}
 		
-		// Calculate the amount of data for these lists
-		double count = countBooleanData(trueList, falseList);
+		int[] familyCounts = (index != null) ? index.countFamily(node.getIndex(), parentIndexes)
+				: data.countFamily(node.getIndex(), parentIndexes);
 		
-		// Calculate the amount of data for these lists without original node
-		double dataCount = countBooleanData(temp, falseList);
+		List<Double> probabilities = getProbabilities(familyCounts);
 		
-		// Avoid divide by zero
-		if (dataCount == 0) {
-			count++;
-			dataCount += 2;
-		}
+		log(DEBUG, () -> "Finished creating probability list: " + probabilities);
 		
-		double probability = count/dataCount;
-		
-		log(DEBUG, "Probability is " + probability);
-		return probability;
+		return probabilities;
 	}
 	
 	
 	/**
-	 * TODO probabilities should only be calculated once per node
-	 * 
-	 * RECURSION WARNING
-	 * 
-	 * Recursively creates a sorted list of every possible true/false
-	 * combination with the given list.
-	 * 
-	 * e.g. The first time this is called, truelist should have one node
-	 * and remainingNodes will be that nodes parents. We add the first parent
-	 * to a false list and call this method again, adding parents to false until
-	 * we get to the base case. The base case is when there are no remaining
-	 * nodes, so everything will be checked as true or false.
-	 * 
-	 * We return the probability of the base case (FF at first) in a list, and
-	 * then run recursively again but with the last node being true (FT). We add
-	 * this value to the list (Now [FF, FT]) and return it back up the recursion
-	 * chain.
-	 * 
-	 * Eventually this gives us a list of all probabilities for each of the nodes
-	 * originally in the remainingNodes list. e.g. for a node with three parents
-	 * the list will be probabilities of [FFF, FFT, FTF, FTT, TFF, TFT, TTF, TTT].
-	 * 
-	 * If this is still hard to understand, ask me, but I think my logic is ok.
-	 * 
-	 * @param trueList	- List of nodes that must be true under all lower recurses
-	 * @param falseList	- List of nodes that are false under all lower recurses
-	 * @param remainingNodes - List of nodes to get all possible combinations of.
-	 * 
-	 * @return An ordered list of all probabilities for remainingNodes
+	 * @param familyCounts - Counts of a family, as from Dataset.countFamily
+	 * @return Probability the child is true for each parent combination
 	 */
-	@SuppressWarnings("unchecked")
-	private List<Double> getRecursiveProbabilities(ArrayList<Node> trueList, ArrayList<Node> falseList, ArrayList<Node> remainingNodes) {
-		log(DEBUG, "True list: " + trueList);
-		log(DEBUG, "False list: " + falseList);
-		log(DEBUG, "Remainder list: " + remainingNodes);
-		
-		List<Double> probabilities = new ArrayList<Double>();
-		
-		// If no remaining nodes, return probability of these lists
-		if (remainingNodes.size() == 0) {
-			
-			log(DEBUG, "At base case");
+	private static List<Double> getProbabilities(int[] familyCounts) {
+		List<Double> probabilities = new ArrayList<Double>(familyCounts.length / 2);
+		for (int combination = 0; combination < familyCounts.length / 2; combination++) {
 			
-			double probability = getProbability(trueList, falseList);
+			// Rows with this combination where the node is true, and in total
+			int count = familyCounts[2 * combination + 1];
+			int dataCount = familyCounts[2 * combination] + count;
 			
-			
-			// Return the probability
-			probabilities.add(probability);
-			return probabilities;
+			probabilities.add(NetworkStatistics.probability(count, dataCount));
 		}
 		
-		Node newNode = remainingNodes.remove(0);
-		
-		// Get all probabilities when first remaining node is false
-		falseList.add(newNode);
-		
-		// Create a copy of the arraylist as lower levels will modify given list
-		ArrayList<Node> trueCopy = (ArrayList<Node>) trueList.clone();
-		ArrayList<Node> falseCopy = (ArrayList<Node>) falseList.clone();
-		ArrayList<Node> remainderCopy = (ArrayList<Node>) remainingNodes.clone();
-		
-		// Add all probabilities from recursion
-		probabilities.addAll(getRecursiveProbabilities(trueCopy, falseCopy, remainderCopy));
-		
-		// Get all probabilities when first remaining node is true instead
-		falseList.remove(newNode);
-		trueList.add(newNode);
-		
-		// Create a copy of the arraylist as lower levels will modify given list
-		trueCopy = (ArrayList<Node>) trueList.clone();
-		falseCopy = (ArrayList<Node>) falseList.clone();
-		remainderCopy = (ArrayList<Node>) remainingNodes.clone();
-
-		probabilities.addAll(getRecursiveProbabilities(trueCopy, falseCopy, remainderCopy));
-		
 		return probabilities;
 	}
 	
 	
+	/**
+	 * Calculates the likelihood of the data in a single pass, looking up
+	 * each node's probability in its table for every row.
+	 * 
+	 * @return
+	 */
 	public double calculateMaximumLikelihood() {
 		
 		double likelihood = 1; // Starting at one because we multiply
 		
-		log(DEBUG, "Data size is: " + data.size());
+		log(DEBUG, () -> "Data size is: " + data.getNumRows());
+		
+		// Look up the table and parent indexes of each node once
+		int[] nodeIndexes = new int[nodes.size()];
+		int[][] parentIndexes = new int[nodes.size()][];
+		double[][] tables = new double[nodes.size()][];
+		int n = 0;
+		for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
+			Node node = nodeElement.getValue();
+			List<Node> parents = node.getParents();
+			
+			nodeIndexes[n] = node.getIndex();
+			parentIndexes[n] = new int[parents.size()];
+			for (int p = 0; p < parents.size(); p++) {
+				parentIndexes[n][p] = parents.get(p).getIndex();
+			}
+			tables[n] = getCPT(node);
+			n++;
+		}
 		
 		// For every row in the data
-		for (int i = 0; i < data.size(); i++) {
+		for (int i = 0; i < data.getNumRows(); i++) {
 			
-			List<Boolean> row = data.get(i);
-			log(DEBUG, "Checking row: " + row);
 			double rowProbability = 1; // Starting at one because we multiply
 		
 			// For every node in the row
-			for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
-				
-				// Get the probability of that node...
-				Node node = nodeElement.getValue();
-				
-				log(DEBUG, " ");
-				log(DEBUG, "Node checked is: " + node.toString());
-		
-				// Get probability where this node is [value of column in row],
-				// including where each parent = [value of their column in row]
-				
-				ArrayList<Node> trueList = new ArrayList<Node>();
-				ArrayList<Node> falseList = new ArrayList<Node>();
-				trueList.add(node);
+			for (n = 0; n < nodeIndexes.length; n++) {
 				
-				
-				// For every node in the row
-				for (Map.Entry<String, Node> parentNodeElement : nodes.entrySet()) {
-					
-					// Get the probability of that node...
-					Node parentNode = parentNodeElement.getValue();
-					
-					// Can't be your own parent
-					if (parentNode.equals(node)) {
-						continue;
-					}
-					
-					// If this node is the parent of our node
-					List<Node> parents = node.getParents();
-					if(parents.contains(parentNode)) {
-						
-						log(DEBUG, "Found parent: " + parentNode.toString() + " for node: " + node.toString());
-						int parentIndex = parentNode.getIndex();
-				
-						// If true add to true list
-						if(row.get(parentIndex) == true) {
-							trueList.add(parentNode);
-						} else {
-							// If false add to false list
-							falseList.add(parentNode);
-						}
-					}
+				// Find which parent combination this row is (first parent is the highest bit)
+				int combination = 0;
+				for (int parentIndex : parentIndexes[n]) {
+					combination = (combination << 1) | (data.get(i, parentIndex) ? 1 : 0);
 				}
 				
-				log(DEBUG, "True list: " + trueList);
-				log(DEBUG, "False list: " + falseList);
-				
-				
-				// Get probability for this node
-				double nodeProbability = getProbability(trueList, falseList);
+				double nodeProbability = tables[n][combination];
 				
 				// If this node is false, take opposite of probability
-				int nodeIndex = node.getIndex();
-				if(row.get(nodeIndex) == false) {
+				if(data.get(i, nodeIndexes[n]) == false) {
 					nodeProbability = 1 - nodeProbability;
 				}
-				
-				log(DEBUG, "Adjusted probability is: " + nodeProbability);
 		
 				// Multiply this probability by rest in row
 				rowProbability *= nodeProbability;
 			}
-			log(DEBUG, "Row probability is: " + rowProbability);
+			if (LOG.isEnabled(DEBUG)) {
+				log(DEBUG, "Row probability is: " + rowProbability);
+			}
 			// Multiply this probability by other rows
 			likelihood *= rowProbability;
 		}
 		
-		log(DEBUG, "Total probability is: " + likelihood);
+		if (LOG.isEnabled(DEBUG)) {
+			log(DEBUG, "Total probability is: " + likelihood);
+		}
 		
 		// Return the total value
 		return likelihood;
 	}
 	
-	public void removeEdges() {
-		edges = new ArrayList<Edge>();
-	}
 	
-	public double calculateLogLikelihood() {
-		return Math.log(calculateMaximumLikelihood());
+	/**
+	 * Returns the conditional probability table of a node, as an array in
+	 * the same order as getAllProbabilities. The table is only built once,
+	 * and is rebuilt if the node's parents have changed since.
+	 * 
+	 * @param node - Node to get the table for
+	 * @return Probability the node is true, indexed by parent combination
+	 */
+	public double[] getCPT(Node node) {
+		int index = node.getIndex();
+		List<Node> parents = node.getParents();
+		
+		if (cpts[index] == null || !cptParents.get(index).equals(parents)) {
+			setCPT(node, getAllProbabilities(node, parents));
+		}
+		
+		return cpts[index];
 	}
 	
-	public double calculateScore() {
-		double c = 1; // constant value
-		return calculateLogLikelihood() - (c * data.size());
+	
+	/**
+	 * Stores the table of a node, for its current parents.
+	 */
+	private void setCPT(Node node, List<Double> probabilities) {
+		double[] cpt = new double[probabilities.size()];
+		for (int i = 0; i < cpt.length; i++) {
+			cpt[i] = probabilities.get(i);
+		}
+		
+		cpts[node.getIndex()] = cpt;
+		cptParents.set(node.getIndex(), new ArrayList<Node>(node.getParents()));
 	}
 	
+	
 	/**
-	 * My interpretation of how to get weights using mutual inclusion.
+	 * Counts every node's family in one batch, sharing each pass over the
+	 * data, and keeps the tables and log likelihoods this gives. Writing
+	 * the CPTs or calculating the likelihood afterwards needs no counting.
 	 * 
-	 * This method is very poorly written and may not be correct I don't know
-	 * 
-	 * @param node1
-	 * @param node2
-	 * @return
+	 * @param kernel - Kernel to count with
 	 */
-	public double getWeight(Node node1, Node node2) {
-		double weight = 0;
-		
-		log(INFO, "getting weight");
-		
-		// list only with each node for getting individual probabilities
-		ArrayList<Node> aList = new ArrayList<Node>();
-		aList.add(node1);
-		ArrayList<Node> bList = new ArrayList<Node>();
-		bList.add(node2);
-		
-		log(INFO, "Getting A prob");
-		// get individual probabilities so not recalculating all the time
-		double aTrueProb = getProbability(aList, new ArrayList<Node>());
-		double aFalseProb = getProbability(new ArrayList<Node>(), aList);
-		log(INFO, "getting b probability");
-		double bTrueProb = getProbability(bList, new ArrayList<Node>());
-		double bFalseProb = getProbability(new ArrayList<Node>(), bList);
-		
-		log(INFO, "Trying TT");
-		
-		// TT
-		ArrayList<Node> trueList = new ArrayList<Node>();
-		ArrayList<Node> falseList = new ArrayList<Node>();
-		trueList.add(node1);
-		trueList.add(node2);
-		double probability1 = getProbability(trueList, falseList);
-		double probability2 = (probability1 / (aTrueProb * bTrueProb));
-		weight += (probability1 * Math.log(probability2));
-		
-		// FF
-		trueList = new ArrayList<Node>();
-		falseList = new ArrayList<Node>();
-		falseList.add(node1);
-		falseList.add(node2);
-		probability1 = getProbability(trueList, falseList);
-		probability2 = (probability1 / (aFalseProb * bFalseProb));
-		weight += (probability1 * Math.log(probability2));
-		
-		// TF
-		trueList = new ArrayList<Node>();
-		falseList = new ArrayList<Node>();
-		trueList.add(node1);
-		falseList.add(node2);
-		probability1 = getProbability(trueList, falseList);
-		probability2 = (probability1 / (aTrueProb * bFalseProb));
-		weight += (probability1 * Math.log(probability2));
-		
-		// FT
-		trueList = new ArrayList<Node>();
-		falseList = new ArrayList<Node>();
-		falseList.add(node1);
-		trueList.add(node2);
-		probability1 = getProbability(trueList, falseList);
-		probability2 = (probability1 / (aFalseProb * bTrueProb));
-		weight += (probability1 * Math.log(probability2));
-		
-		return weight;
+	public void countFamilies(CountingKernel kernel) {
+		int[] variables = new int[nodesByIndex.length];
+		int[][] parentIndexes = new int[nodesByIndex.length][];
+		for (int i = 0; i < nodesByIndex.length; i++) {
+			List<Node> parents = nodesByIndex[i].getParents();
+			variables[i] = i;
+			parentIndexes[i] = new int[parents.size()];
+			for (int p = 0; p < parents.size(); p++) {
+				parentIndexes[i][p] = parents.get(p).getIndex();
+			}
+		}
+		
+		int[][] familyCounts = kernel.countFamilies(data, variables, parentIndexes);
+		
+		for (int i = 0; i < nodesByIndex.length; i++) {
+			Node node = nodesByIndex[i];
+			setCPT(node, getProbabilities(familyCounts[i]));
+			Family family = new Family(node, node.getParents());
+			familyLogLikelihoods.put(family, LogLikelihoodScore.logLikelihood(familyCounts[i]));
+			familyScores.put(family, scoring.scoreFamily(familyCounts[i], data.getNumRows()));
+		}
 	}
 	
-	public boolean addEdge(Edge edge) {
-		// Check edge isn't already in list of edges
-		for(Edge existingEdge : edges) {
-			
-			if((edge.getChild().equals(existingEdge.getChild()) && edge.getParent().equals(existingEdge.getParent())) ||
-					(edge.getChild().equals(existingEdge.getParent()) && edge.getParent().equals(existingEdge.getChild()))) {
-				// Edge already exists!
-				log(INFO, "Tried adding invalid edge");
-				return false;
+	/**
+	 * Scores every given family which hasn't been scored yet in one batch,
+	 * sharing each pass over the data, so getFamilyScore then finds them
+	 * all cached.
+	 * 
+	 * @param kernel - Kernel to count with
+	 * @param children - The child of each family
+	 * @param parentLists - The parents of each family
+	 */
+	public void scoreFamilies(CountingKernel kernel, List<Node> children, List<List<Node>> parentLists) {
+		List<Family> families = new ArrayList<Family>();
+		List<int[]> parentIndexes = new ArrayList<int[]>();
+		Set<Family> batched = new HashSet<Family>();
+		
+		for (int i = 0; i < children.size(); i++) {
+			List<Node> parents = parentLists.get(i);
+			Family family = new Family(children.get(i), parents);
+			if (familyScores.containsKey(family) || !batched.add(family)) {
+				continue;
 			}
 			
+			int[] indexes = new int[parents.size()];
+			for (int p = 0; p < indexes.length; p++) {
+				indexes[p] = parents.get(p).getIndex();
+			}
+			families.add(family);
+			parentIndexes.add(indexes);
+		}
+		if (families.isEmpty()) {
+			return;
 		}
 		
+		int[] variables = new int[families.size()];
+		for (int i = 0; i < variables.length; i++) {
+			variables[i] = families.get(i).getChild();
+		}
+		int[][] familyCounts = kernel.countFamilies(data, variables, parentIndexes.toArray(new int[0][]));
 		
-		if(!edges.contains(edge)) {
-			
-			log(DEBUG, "Added edge to network");
-		
-			// Add edge to list of edges
-			edges.add(edge);
-			
-			// Add parent to node
-			Node child = edge.getChild();
-			Node parent = edge.getParent();
-			child.addParent(parent);
-			
+		for (int i = 0; i < variables.length; i++) {
+			familyScores.put(families.get(i), scoring.scoreFamily(familyCounts[i], data.getNumRows()));
 		}
-		return true;
 	}
 	
-	public void removeEdge(Edge edge) {
-		// Check edge is already in list of edges
-		if(edges.contains(edge)) {
-		
-			// Remove edge from list
-			edges.remove(edge);
-			
-			// Remove parent from node
-			Node child = edge.getChild();
-			Node parent = edge.getParent();
-			child.removeParent(parent);
+	/**
+	 * Removes every edge, and so every parent of every node
+	 */
+	public void removeEdges() {
+		for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
+			nodeElement.getValue().removeAllParents();
 		}
+		edges = new ArrayList<Edge>();
+		edgeMatrix = new Edge[data.getNumVariables()][data.getNumVariables()];
+		initialiseAncestors();
 	}
 	
-	
-	public void setEdges(ArrayList<Edge> newEdges) {
+	/**
+	 * Calculates the log likelihood of the data directly in log space, as
+	 * the sum of each family's log likelihood. Unlike taking the log of
+	 * calculateMaximumLikelihood, this can't underflow on large data.
+	 * 
+	 * @return
+	 */
+	public double calculateLogLikelihood() {
+		double logLikelihood = 0;
 		
-		// Remove all existing parents
 		for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
 			Node node = nodeElement.getValue();
-			
-			// Remove parents from node
-			node.removeAllParents();
+			logLikelihood += getFamilyLogLikelihood(node, node.getParents());
 		}
 		
-		// For every edge in newEdges
-		for(Edge edge : newEdges) {
-			
-			// Add the edge to the graph
-			addEdge(edge);
+		return logLikelihood;
+	}
+	
+	/**
+	 * The score of the network, which is the sum of the score of each
+	 * family, plus a constant. By default this is the log likelihood,
+	 * minus a penalty for each row, see setScoringFunction.
+	 * 
+	 * @return
+	 */
+	public double calculateScore() {
+		double score = 0;
+		
+		for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
+			Node node = nodeElement.getValue();
+			score += getFamilyScore(node, node.getParents());
 		}
+		
+		return score + scoring.getConstant(data.getNumRows());
 	}
 	
 	
-	public void reverseEdge(Edge edge) {
-		// Check edge is in list of edges
-		if(edges.contains(edge)) {
-		
-			// Remove the edge
-			removeEdge(edge);
-			
-			// Create new edge with order swapped
-			Edge newEdge = new Edge(edge.getChild(), edge.getParent());
-			
-			// Add the edge with nodes swapped
-			addEdge(newEdge);
-			//log(INFO, "Added Edge: " + newEdge.toString());
+	/**
+	 * Returns one node's part of the score, given the values of the given
+	 * parents. Results are cached, so each family is only ever scored once.
+	 * 
+	 * @param node - Node to score
+	 * @param parents - The parents of the node
+	 * @return The score of the family
+	 */
+	public double getFamilyScore(Node node, List<Node> parents) {
+		Family family = new Family(node, parents);
+		Double cached = familyScores.get(family);
+		if (cached != null) {
+			return cached;
 		}
+		
+		double score = scoring.scoreFamily(countFamily(node, parents), data.getNumRows());
+		
+		familyScores.put(family, score);
+		return score;
 	}
 	
 	
 	/**
-	 * Checks that the DAG is valid for this network
+	 * Changes how networks are scored. This network's copies made after
+	 * share the new function; earlier copies keep the old one.
 	 * 
-	 * TODO I think this should also make sure all nodes are connected
-	 * in one graph
+	 * @param scoring - The new scoring function
+	 */
+	public void setScoringFunction(ScoringFunction scoring) {
+		log(INFO, () -> "Scoring networks with " + scoring);
+		this.scoring = scoring;
+		this.familyScores = new ConcurrentHashMap<Family, Double>();
+	}
+	
+	public ScoringFunction getScoringFunction() {
+		return scoring;
+	}
+	
+	
+	/**
+	 * Returns the log likelihood of the data for one node, given the values
+	 * of the given parents. The log likelihood of the network is the sum of
+	 * this over every node, so changing the parents of a node only changes
+	 * its own term.
 	 * 
-	 * @return
+	 * Results are cached, so each family is only ever scored once.
+	 * 
+	 * @param node - Node to score
+	 * @param parents - The parents of the node
+	 * @return The log likelihood of the node's column in the data
 	 */
-	public boolean checkValidDAG() {
-		
-		// For each node in DAG
-		for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {	
-			
-			Node node = nodeElement.getValue();
-			List<Node> parents = node.getParents();
+	public double getFamilyLogLikelihood(Node node, List<Node> parents) {
+		Family family = new Family(node, parents);
+		Double cached = familyLogLikelihoods.get(family);
+		if (cached != null) {
+			return cached;
+		}
 		
-			// For each parent of node
-			for(Node parent : parents) {
+		double logLikelihood = LogLikelihoodScore.logLikelihood(countFamily(node, parents));
 		
-				// Recursively check DAG is valid
-				boolean result = checkValidRecursively(node, parent);
-				
-				if(result == false) {
-					return false;
+		familyLogLikelihoods.put(family, logLikelihood);
+		return logLikelihood;
+	}
+	
+	
+	/**
+	 * Counts every combination of a node and the given parents, in the
+	 * same order as Dataset.countFamily, through the count cache (or index)
+	 * so that counts shared between families are only made once.
+	 * 
+	 * @param node - The child of the family
+	 * @param parents - The parents, first is the highest bit
+	 * @return Counts indexed by (parent combination << 1) | node value
+	 */
+	private int[] countFamily(Node node, List<Node> parents) {
+		int[] familyCounts = new int[2 << parents.size()];
+		List<Node> trueList = new ArrayList<Node>();
+		List<Node> falseList = new ArrayList<Node>();
+		
+		// For each combination of parents (first parent is the highest bit)
+		for (int combination = 0; combination < (1 << parents.size()); combination++) {
+			trueList.clear();
+			falseList.clear();
+			for (int p = 0; p < parents.size(); p++) {
+				if (((combination >> (parents.size() - 1 - p)) & 1) == 1) {
+					trueList.add(parents.get(p));
+				} else {
+					falseList.add(parents.get(p));
 				}
 			}
+			
+			// Skip combinations which never occur in the data
+			int total = countBooleanData(trueList, falseList);
+			if (total == 0) {
+				continue;
+			}
+			
+			trueList.add(node);
+			int trueCount = countBooleanData(trueList, falseList);
+			
+			familyCounts[2 * combination] = total - trueCount;
+			familyCounts[2 * combination + 1] = trueCount;
 		}
 		
-		return true;
+		return familyCounts;
 	}
 	
 	
 	/**
-	 * Recursively check a node by traveling through all combinations
-	 * of its parents until we either have no parents left (valid) or
-	 * we end up at the node we started from (invalid)
-	 * 
-	 * Uses depth-first search
+	 * @return How much the score changes if parent is made a parent of child
+	 */
+	public double calculateAddScoreChange(Node parent, Node child) {
+		List<Node> newParents = new ArrayList<Node>(child.getParents());
+		if (!child.hasParent(parent)) {
+			newParents.add(parent);
+		}
+		
+		return getFamilyScore(child, newParents)
+				- getFamilyScore(child, child.getParents());
+	}
+	
+	
+	/**
+	 * @return How much the score changes if the edge is removed
+	 */
+	public double calculateRemoveScoreChange(Edge edge) {
+		Node child = edge.getChild();
+		List<Node> newParents = new ArrayList<Node>(child.getParents());
+		newParents.remove(edge.getParent());
+		
+		return getFamilyScore(child, newParents)
+				- getFamilyScore(child, child.getParents());
+	}
+	
+	
+	/**
+	 * Reversing an edge changes the families of both of its nodes.
 	 * 
-	 * @param checkNode - Node we are checking validity of
-	 * @param currentNode - Current ancestor of node
+	 * @return How much the score changes if the edge is reversed
+	 */
+	public double calculateReverseScoreChange(Edge edge) {
+		return calculateRemoveScoreChange(edge)
+				+ calculateAddScoreChange(edge.getChild(), edge.getParent());
+	}
+	
+	/**
+	 * Adds an edge to the network, unless there is already an edge
+	 * between its nodes (in either direction).
 	 * 
-	 * @return true if node is not an ancestor of itself
-	 * @return false if node checked was found
+	 * @param edge - Edge to add
+	 * @return false if the edge couldn't be added
 	 */
-	public boolean checkValidRecursively(Node checkNode, Node currentNode) {
+	public boolean addEdge(Edge edge) {
+		Node child = edge.getChild();
+		Node parent = edge.getParent();
 		
-		// If currentNode = Node return false
-		if(checkNode.equals(currentNode)) {
+		// Check edge isn't already in list of edges
+		if (getEdge(parent, child) != null || getEdge(child, parent) != null) {
+			// Edge already exists!
+			log(DEBUG, "Tried adding invalid edge");
 			return false;
 		}
 		
-		// Else if currentNode has no parents return true
-		if(currentNode.hasParents() == false) {
-			return true;
-		}
+		log(DEBUG, "Added edge to network");
+		
+		// Add edge to list of edges
+		edges.add(edge);
+		edgeMatrix[parent.getIndex()][child.getIndex()] = edge;
+		
+		// Add parent to node
+		child.addParent(parent);
+		addAncestors(parent, child);
+		
+		return true;
+	}
+	
+	/**
+	 * Removes the edge between the given edge's nodes, if there is one
+	 * 
+	 * @param edge
+	 */
+	public void removeEdge(Edge edge) {
+		// Check edge is already in list of edges
+		Edge existing = getEdge(edge.getParent(), edge.getChild());
+		if(existing != null) {
 		
-		// Else for every parent of current node
-		List<Node> parents = currentNode.getParents();
-		for(Node parent : parents) {
-			// Recurse
-			boolean result = checkValidRecursively(checkNode, parent);
+			// Remove edge from list
+			edges.remove(existing);
+			edgeMatrix[existing.getParent().getIndex()][existing.getChild().getIndex()] = null;
 			
-			// If value returned was false return false
-			if(result == false) {
-				return false;
-			}
+			// Remove parent from node, and update the ancestors of everything below it
+			BitSet affected = getDescendantsOf(existing.getChild());
+			existing.getChild().removeParent(existing.getParent());
+			recalculateAncestors(affected);
 		}
+	}
+	
+	
+	public void setEdges(ArrayList<Edge> newEdges) {
 		
-		// If we make it here then every parent was checked
-		return true;
+		// Remove all existing edges and parents
+		removeEdges();
+		
+		// For every edge in newEdges
+		for(Edge edge : newEdges) {
+			
+			// Add the edge to the graph
+			addEdge(edge);
+		}
 	}
 	
 	
+	public void reverseEdge(Edge edge) {
+		// Check edge is in list of edges
+		Edge existing = getEdge(edge.getParent(), edge.getChild());
+		if(existing != null) {
+		
+			// Remove the edge
+			removeEdge(existing);
+			
+			// Create new edge with order swapped
+			Edge newEdge = new Edge(existing.getChild(), existing.getParent());
+			
+			// Add the edge with nodes swapped
+			addEdge(newEdge);
+			//log(INFO, "Added Edge: " + newEdge.toString());
+		}
+	}
+	
 	
 	public boolean equals(BayesianNetwork other) {
 		if(other.getNodes() != nodes) {
@@ -710,14 +955,37 @@ public class BayesianNetwork extends Global {
 	
 	
 	
-	public List<List<Boolean>> getData() {
+	/**
+	 * Builds an AD-tree over the data, which then answers every count this
+	 * network (and any copy made after) needs.
+	 * 
+	 * @param leafThreshold - Tree nodes with this many rows or fewer are
+	 * scanned rather than split
+	 */
+	public void useADTree(int leafThreshold) {
+		log(INFO, "Indexing data with an AD-tree");
+		index = new ADTree(data, leafThreshold);
+	}
+	
+	public ADTree getADTree() {
+		return index;
+	}
+	
+	public Dataset getData() {
 		return data;
 	}
+	
+	
+	public CountCache getCountCache() {
+		return counts;
+	}
 
 
 	private static void log(int mode, String str) {
-		if (MODE >= mode) {
-			System.out.println(str);
-		}
+		LOG.log(mode, str);
+	}
+	
+	private static void log(int mode, Supplier<String> message) {
+		LOG.log(mode, message);
 	}
 }
\ No newline at end of file
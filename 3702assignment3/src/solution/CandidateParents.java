@@ -0,0 +1,105 @@
+package solution;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+
+/**
+ * Limits on which parents search may give each node: at most a number of
+ * parents, and optionally only parents from a short list of candidates
+ * (the sparse candidate method).
+ *
+ * Each node's candidates are the k other nodes it has the most mutual
+ * information with, worked out once from pairwise counts. Keeping k and
+ * the number of parents small keeps every CPT small and the number of
+ * moves each iteration close to N * k instead of N^2.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class CandidateParents extends Global {
+	private final static Logger LOG = getLogger(CandidateParents.class);
+
+	/** Most parents any node may have **/
+	private final int maxParents;
+
+	/** Indexes of each node's candidate parents, or null for any node **/
+	private final BitSet[] candidates;
+
+
+	/**
+	 * Allows any node as a parent, up to a number of parents.
+	 *
+	 * @param maxParents - Most parents any node may have
+	 */
+	public CandidateParents(int maxParents) {
+		this.maxParents = maxParents;
+		this.candidates = null;
+	}
+
+	/**
+	 * Allows each node only its k best candidates by mutual information
+	 * as parents, up to a number of parents.
+	 *
+	 * @param data - The data to find the mutual information of nodes in
+	 * @param maxParents - Most parents any node may have
+	 * @param k - Number of candidate parents of each node
+	 */
+	public CandidateParents(Dataset data, int maxParents, int k) {
+		this.maxParents = maxParents;
+
+		int numNodes = data.getNumVariables();
+		log(INFO, "Choosing " + k + " candidate parents of " + numNodes + " nodes");
+		final double[][] weights = ChowLiuTree.calculateMutualInformation(data);
+
+		candidates = new BitSet[numNodes];
+		for (int child = 0; child < numNodes; child++) {
+			final double[] childWeights = weights[child];
+
+			// Every other node, most information first. Ties go to the lowest
+			// index, so the same candidates are always chosen
+			Integer[] others = new Integer[numNodes - 1];
+			for (int i = 0, other = 0; other < numNodes; other++) {
+				if (other != child) {
+					others[i++] = other;
+				}
+			}
+			Arrays.sort(others, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer node1, Integer node2) {
+					int result = Double.compare(childWeights[node2], childWeights[node1]);
+					return (result != 0) ? result : node1.compareTo(node2);
+				}
+			});
+
+			candidates[child] = new BitSet(numNodes);
+			for (int i = 0; i < Math.min(k, others.length); i++) {
+				candidates[child].set(others[i]);
+			}
+		}
+	}
+
+
+	/**
+	 * @return true if parent may be added as a parent of child: child has
+	 * room for another parent, and parent is one of its candidates
+	 */
+	public boolean canAdd(Node parent, Node child) {
+		return child.getParents().size() < maxParents && isCandidate(parent, child);
+	}
+
+	/**
+	 * @return true if parent is one of child's candidate parents
+	 */
+	public boolean isCandidate(Node parent, Node child) {
+		return candidates == null || candidates[child.getIndex()].get(parent.getIndex());
+	}
+
+	public int getMaxParents() {
+		return maxParents;
+	}
+
+
+	private static void log(int mode, String str) {
+		LOG.log(mode, str);
+	}
+}
@@ -0,0 +1,193 @@
+package solution;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Static class used to learn the best tree shaped network (Chow-Liu tree)
+ * for a data set, as a starting point for structure search.
+ *
+ * The mutual information of every pair of nodes is worked out once from
+ * pairwise counts, then the maximum weight spanning tree is found with
+ * Kruskal's algorithm and each edge is pointed away from the root.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class ChowLiuTree extends Global {
+	private final static Logger LOG = getLogger(ChowLiuTree.class);
+
+
+	/**
+	 * Replaces the edges of the network with the Chow-Liu tree for its data.
+	 *
+	 * @param bayonet - Network to create the tree in
+	 * @return the same network, with the tree as its edges
+	 */
+	public static BayesianNetwork createTree(BayesianNetwork bayonet) {
+		Dataset data = bayonet.getData();
+		int numNodes = data.getNumVariables();
+
+		log(INFO, "Calculating mutual information of " + numNodes + " nodes");
+		final double[][] weights = calculateMutualInformation(data);
+
+		// Every pair of nodes, strongest first. Ties go to the lowest
+		// indexes, so the same tree is always made
+		List<int[]> pairs = new ArrayList<int[]>(numNodes * (numNodes - 1) / 2);
+		for (int i = 0; i < numNodes; i++) {
+			for (int j = i + 1; j < numNodes; j++) {
+				pairs.add(new int[] {i, j});
+			}
+		}
+		Collections.sort(pairs, new Comparator<int[]>() {
+			@Override
+			public int compare(int[] pair1, int[] pair2) {
+				int result = Double.compare(weights[pair2[0]][pair2[1]], weights[pair1[0]][pair1[1]]);
+				if (result != 0) {
+					return result;
+				}
+				return (pair1[0] != pair2[0]) ? pair1[0] - pair2[0] : pair1[1] - pair2[1];
+			}
+		});
+
+		// Kruskal's algorithm, keeping each pair that joins two separate trees
+		int[] group = new int[numNodes];
+		for (int i = 0; i < numNodes; i++) {
+			group[i] = i;
+		}
+
+		List<List<Integer>> neighbours = new ArrayList<List<Integer>>(numNodes);
+		for (int i = 0; i < numNodes; i++) {
+			neighbours.add(new ArrayList<Integer>());
+		}
+
+		int treeEdges = 0;
+		for (int[] pair : pairs) {
+			int group1 = findGroup(group, pair[0]);
+			int group2 = findGroup(group, pair[1]);
+			if (group1 == group2) {
+				continue;
+			}
+
+			log(DEBUG, () -> "Joining " + pair[0] + " and " + pair[1] + ", weight " + weights[pair[0]][pair[1]]);
+			group[group1] = group2;
+			neighbours.get(pair[0]).add(pair[1]);
+			neighbours.get(pair[1]).add(pair[0]);
+
+			if (++treeEdges == numNodes - 1) {
+				break;
+			}
+		}
+
+		// Point every edge away from the root (node 0), breadth first
+		bayonet.removeEdges();
+
+		boolean[] visited = new boolean[numNodes];
+		Deque<Integer> toVisit = new ArrayDeque<Integer>();
+		for (int root = 0; root < numNodes; root++) {
+			if (visited[root]) {
+				continue;
+			}
+			visited[root] = true;
+			toVisit.add(root);
+
+			while (!toVisit.isEmpty()) {
+				int parent = toVisit.poll();
+				for (int child : neighbours.get(parent)) {
+					if (!visited[child]) {
+						visited[child] = true;
+						toVisit.add(child);
+						bayonet.addEdge(new Edge(bayonet.getNodeByIndex(parent), bayonet.getNodeByIndex(child)));
+					}
+				}
+			}
+		}
+
+		log(INFO, "Created tree with " + bayonet.getEdges().size() + " edges");
+		return bayonet;
+	}
+
+
+	/**
+	 * Calculates the mutual information of every pair of variables, from
+	 * a single set of pairwise counts.
+	 *
+	 * @param data - Data to calculate from
+	 * @return Mutual information indexed by the two variables, in either order
+	 */
+	public static double[][] calculateMutualInformation(Dataset data) {
+		int numNodes = data.getNumVariables();
+		int[][] pairCounts = data.countPairs();
+
+		double[][] weights = new double[numNodes][numNodes];
+		for (int i = 0; i < numNodes; i++) {
+			for (int j = i + 1; j < numNodes; j++) {
+				double weight = calculateMutualInformation(pairCounts[i][j],
+						pairCounts[i][i], pairCounts[j][j], data.getNumRows());
+				weights[i][j] = weight;
+				weights[j][i] = weight;
+			}
+		}
+
+		return weights;
+	}
+
+
+	/**
+	 * Calculates the mutual information of two variables from counts,
+	 * the sum over each of their four true/false combinations of
+	 * P(a, b) * log(P(a, b) / (P(a) * P(b))).
+	 *
+	 * @param bothTrue - Rows where both are true
+	 * @param firstTrue - Rows where the first is true
+	 * @param secondTrue - Rows where the second is true
+	 * @param rows - Total number of rows
+	 * @return The mutual information
+	 */
+	public static double calculateMutualInformation(int bothTrue, int firstTrue, int secondTrue, int rows) {
+		int firstFalse = rows - firstTrue;
+		int secondFalse = rows - secondTrue;
+
+		return informationTerm(bothTrue, firstTrue, secondTrue, rows)
+				+ informationTerm(firstTrue - bothTrue, firstTrue, secondFalse, rows)
+				+ informationTerm(secondTrue - bothTrue, firstFalse, secondTrue, rows)
+				+ informationTerm(rows - firstTrue - secondTrue + bothTrue, firstFalse, secondFalse, rows);
+	}
+
+
+	/**
+	 * @return One combination's part of the mutual information, which is
+	 * 0 if the combination never happens
+	 */
+	private static double informationTerm(int joint, int first, int second, int rows) {
+		if (joint == 0) {
+			return 0;
+		}
+		return ((double) joint / rows) * Math.log(((double) joint * rows) / ((double) first * second));
+	}
+
+
+	/**
+	 * @return The group a node is in, shortening the path to it on the way
+	 */
+	private static int findGroup(int[] group, int node) {
+		while (group[node] != node) {
+			group[node] = group[group[node]];
+			node = group[node];
+		}
+		return node;
+	}
+
+
+	private static void log(int mode, String str) {
+		LOG.log(mode, str);
+	}
+
+	private static void log(int mode, Supplier<String> message) {
+		LOG.log(mode, message);
+	}
+}
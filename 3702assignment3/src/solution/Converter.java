@@ -0,0 +1,46 @@
+package solution;
+
+import java.io.IOException;
+
+/**
+ * Converts a text data file into a binary data file, so that later runs
+ * can map the data instead of reading it.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class Converter extends Global {
+	private final static Logger LOG = getLogger(Converter.class);
+
+	/**
+	 * @param args - input.txt output.bin [--no-parents]
+	 */
+	public static void main(String[] args) {
+
+		if (args.length < 2 || args.length > 3
+				|| (args.length == 3 && !args[2].equals("--no-parents"))) {
+			log(ERROR, "Usage: input.txt output.bin [--no-parents]");
+			System.exit(1);
+		}
+
+		// Files with no parents list every node name on one line
+		BayesianNetwork bayonet;
+		if (args.length == 3) {
+			bayonet = Reader.readFileNoParents(args[0]);
+		} else {
+			bayonet = Reader.readFile(args[0]);
+		}
+
+		try {
+			Writer.writeBinary(args[1], bayonet);
+		} catch (IOException e) {
+			e.printStackTrace();
+			log(ERROR, "Error Writing File!");
+			System.exit(1);
+		}
+	}
+
+
+	private static void log(int mode, String str) {
+		LOG.log(mode, str);
+	}
+}
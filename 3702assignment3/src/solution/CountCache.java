@@ -0,0 +1,134 @@
+package solution;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the results of count queries on a data table, so that the
+ * same (variables, true/false assignment) count is only ever calculated
+ * once during structure search.
+ *
+ * The cache is bounded, and throws away the least recently used counts
+ * once it is full. It is safe to share between threads, though the data
+ * itself is counted outside of the lock.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class CountCache {
+	/** Default maximum number of counts to remember **/
+	public final static int DEFAULT_CAPACITY = 100000;
+
+	/** The cached counts, in least recently used order **/
+	private final Map<Query, Integer> cache;
+
+	/** Number of longs needed for a mask over every variable **/
+	private final int numWords;
+
+	private long hits;
+	private long misses;
+
+
+	public CountCache(int numVariables) {
+		this(numVariables, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param numVariables - Number of variables in the data being counted
+	 * @param capacity - Maximum number of counts to remember
+	 */
+	@SuppressWarnings("serial")
+	public CountCache(int numVariables, final int capacity) {
+		this.numWords = (numVariables + 63) >>> 6;
+		this.cache = new LinkedHashMap<Query, Integer>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Query, Integer> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Returns the amount of rows in data where every variable in trueVars
+	 * is true and every variable in falseVars is false, counting the data
+	 * only if this query hasn't been seen recently.
+	 *
+	 * @param data - Data to count
+	 * @param trueVars - Indexes of variables which must be true
+	 * @param falseVars - Indexes of variables which must be false
+	 * @return Amount of rows matching
+	 */
+	public int count(Dataset data, int[] trueVars, int[] falseVars) {
+		Query query = new Query(numWords, trueVars, falseVars);
+
+		synchronized (cache) {
+			Integer count = cache.get(query);
+			if (count != null) {
+				hits++;
+				return count;
+			}
+			misses++;
+		}
+
+		int result = data.count(trueVars, falseVars);
+		synchronized (cache) {
+			cache.put(query, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return Number of counts currently remembered
+	 */
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	public String toString() {
+		synchronized (cache) {
+			return "CountCache(" + cache.size() + " entries, " + hits + " hits, "
+					+ misses + " misses)";
+		}
+	}
+
+
+	/**
+	 * A count query, stored as a mask of the variables which must be
+	 * true and a mask of those which must be false. The order variables
+	 * were given in makes no difference.
+	 */
+	private static class Query {
+		private final long[] trueMask;
+		private final long[] falseMask;
+		private final int hash;
+
+		Query(int numWords, int[] trueVars, int[] falseVars) {
+			trueMask = new long[numWords];
+			falseMask = new long[numWords];
+			for (int v : trueVars) {
+				trueMask[v >>> 6] |= 1L << v;
+			}
+			for (int v : falseVars) {
+				falseMask[v >>> 6] |= 1L << v;
+			}
+			hash = 31 * Arrays.hashCode(trueMask) + Arrays.hashCode(falseMask);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Query)) {
+				return false;
+			}
+			Query other = (Query) o;
+			return hash == other.hash && Arrays.equals(trueMask, other.trueMask)
+					&& Arrays.equals(falseMask, other.falseMask);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package solution;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts many families on a data table at once, splitting the rows into
+ * blocks that are counted in parallel on a fork-join pool. Search counts
+ * the families its moves would give this way, as does counting every
+ * family of a network before writing its CPTs.
+ *
+ * Each block is small enough that the columns it needs stay in cache
+ * while every family in the batch is counted over it, so the whole batch
+ * costs about one pass over memory instead of one per family.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class CountingKernel {
+	/** Words of each column in a block (64 rows, 8 bytes each) **/
+	public final static int BLOCK_WORDS = 1024;
+
+	private final ForkJoinPool pool;
+
+
+	/**
+	 * @param threads - Number of threads to count with, at least 1
+	 * @throws IllegalArgumentException if threads is less than 1
+	 */
+	public CountingKernel(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Need at least one thread to count with, not " + threads);
+		}
+		this.pool = new ForkJoinPool(threads);
+	}
+
+	/**
+	 * Counts every combination of a batch of families, each in the same
+	 * order as Dataset.countFamily.
+	 *
+	 * @param data - Data to count
+	 * @param variables - Index of the child variable of each family
+	 * @param parents - Indexes of the parents of each family, in order
+	 * @return Counts of every combination, per family
+	 */
+	public int[][] countFamilies(final Dataset data, final int[] variables, final int[][] parents) {
+		return pool.invoke(new BlockTask(0, data.getNumWords()) {
+			@Override
+			int[][] countBlock(int fromWord, int toWord) {
+				int[][] blockCounts = new int[variables.length][];
+				for (int f = 0; f < variables.length; f++) {
+					blockCounts[f] = new int[2 << parents[f].length];
+					data.countFamily(variables[f], parents[f], fromWord, toWord, blockCounts[f]);
+				}
+				return blockCounts;
+			}
+		});
+	}
+
+	/**
+	 * Stops the pool's threads once any counts running have finished.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+
+	/**
+	 * Counts a range of words, halving it until it fits in a block, and
+	 * adds up the counts of the two halves.
+	 */
+	@SuppressWarnings("serial")
+	private abstract static class BlockTask extends RecursiveTask<int[][]> {
+		private final int fromWord;
+		private final int toWord;
+
+		BlockTask(int fromWord, int toWord) {
+			this.fromWord = fromWord;
+			this.toWord = toWord;
+		}
+
+		/**
+		 * @return The counts of only the rows in the range of words
+		 */
+		abstract int[][] countBlock(int fromWord, int toWord);
+
+		@Override
+		protected int[][] compute() {
+			if (toWord - fromWord <= BLOCK_WORDS) {
+				return countBlock(fromWord, toWord);
+			}
+
+			int middle = (fromWord + toWord) >>> 1;
+			BlockTask left = split(this, fromWord, middle);
+			BlockTask right = split(this, middle, toWord);
+			left.fork();
+			int[][] counts = right.compute();
+			int[][] leftCounts = left.join();
+
+			for (int i = 0; i < counts.length; i++) {
+				for (int j = 0; j < counts[i].length; j++) {
+					counts[i][j] += leftCounts[i][j];
+				}
+			}
+			return counts;
+		}
+
+		/**
+		 * @return A task counting part of the range the same way as outer
+		 */
+		private static BlockTask split(final BlockTask outer, int fromWord, int toWord) {
+			return new BlockTask(fromWord, toWord) {
+				@Override
+				int[][] countBlock(int from, int to) {
+					return outer.countBlock(from, to);
+				}
+			};
+		}
+	}
+}
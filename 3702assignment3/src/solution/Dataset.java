@@ -0,0 +1,235 @@
+package solution;
+
+/**
+ * The data table of a network, stored column by column.
+ *
+ * Each variable's column is packed into a bitset of longs, where bit r of
+ * the column is set if that variable is true in row r. Counting the rows
+ * that match a set of true/false values is then just a few ANDs and a
+ * popcount per 64 rows, rather than a loop over every row.
+ *
+ * This is the read only view every count goes through. Subclasses say
+ * where the columns are kept by implementing getWord: on the heap, where
+ * they can also be changed (HeapDataset), or in a memory mapped file
+ * (MappedDataset).
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public abstract class Dataset {
+
+	/** Number of variables (columns) in the data **/
+	private final int numVariables;
+
+	/** Number of rows of data **/
+	private final int numRows;
+
+	/** Number of longs needed to hold a single column **/
+	private final int numWords;
+
+	/** Mask of the valid bits in the last word of each column **/
+	private final long lastWordMask;
+
+
+	/**
+	 * @param numVariables - Number of variables in each row
+	 * @param numRows - Number of rows of data
+	 */
+	protected Dataset(int numVariables, int numRows) {
+		this.numVariables = numVariables;
+		this.numRows = numRows;
+		this.numWords = (numRows + 63) >>> 6;
+
+		int remainder = numRows & 63;
+		this.lastWordMask = (remainder == 0) ? -1L : (1L << remainder) - 1;
+	}
+
+	/**
+	 * Returns 64 rows of a variable's column, packed into a long. Bits
+	 * past the last row are always 0.
+	 *
+	 * @param variable - Index of the variable
+	 * @param word - Which 64 rows to get (rows 64 * word onwards)
+	 * @return The packed rows
+	 */
+	public abstract long getWord(int variable, int word);
+
+	/**
+	 * @return The value of a variable in a row
+	 */
+	public boolean get(int row, int variable) {
+		return (getWord(variable, row >>> 6) & (1L << row)) != 0;
+	}
+
+	/**
+	 * Returns the amount of rows where every variable in trueVars is true
+	 * and every variable in falseVars is false.
+	 *
+	 * @param trueVars - Indexes of variables which must be true
+	 * @param falseVars - Indexes of variables which must be false
+	 * @return Amount of rows matching
+	 */
+	public int count(int[] trueVars, int[] falseVars) {
+		return count(trueVars, falseVars, 0, numWords);
+	}
+
+	/**
+	 * Same as count, over only the rows in a range of words.
+	 *
+	 * @param trueVars - Indexes of variables which must be true
+	 * @param falseVars - Indexes of variables which must be false
+	 * @param fromWord - First word to count (inclusive)
+	 * @param toWord - Last word to count (exclusive)
+	 * @return Amount of rows in the range matching
+	 */
+	public int count(int[] trueVars, int[] falseVars, int fromWord, int toWord) {
+		int count = 0;
+
+		for (int w = fromWord; w < toWord; w++) {
+			long match = (w == numWords - 1) ? lastWordMask : -1L;
+
+			for (int i = 0; i < trueVars.length && match != 0; i++) {
+				match &= getWord(trueVars[i], w);
+			}
+			for (int i = 0; i < falseVars.length && match != 0; i++) {
+				match &= ~getWord(falseVars[i], w);
+			}
+
+			count += Long.bitCount(match);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Counts every combination of a variable and its parents in a single
+	 * pass over the data.
+	 *
+	 * The combination of parents in a row is read as a binary number, with
+	 * the first parent as the highest bit. The count of rows with parent
+	 * combination c where the variable is false is at index 2c, and where
+	 * it is true at index 2c + 1.
+	 *
+	 * Each word is split by the parents one at a time, with an AND per
+	 * branch, and the rows of each combination are counted by popcount.
+	 * Combinations which match no rows of a word aren't split further.
+	 *
+	 * @param variable - Index of the child variable
+	 * @param parents - Indexes of its parents, in order
+	 * @return Counts of every combination, 2^(parents + 1) in all
+	 */
+	public int[] countFamily(int variable, int[] parents) {
+		int[] counts = new int[2 << parents.length];
+		countFamily(variable, parents, 0, numWords, counts);
+		return counts;
+	}
+
+	/**
+	 * Same as countFamily, over only the rows in a range of words.
+	 *
+	 * @param variable - Index of the child variable
+	 * @param parents - Indexes of its parents, in order
+	 * @param fromWord - First word to count (inclusive)
+	 * @param toWord - Last word to count (exclusive)
+	 * @param counts - Where to add the counts, 2^(parents + 1) in all
+	 */
+	public void countFamily(int variable, int[] parents, int fromWord, int toWord, int[] counts) {
+		long[] parentWords = new long[parents.length];
+
+		for (int w = fromWord; w < toWord; w++) {
+			long rows = (w == numWords - 1) ? lastWordMask : -1L;
+			long childWord = getWord(variable, w);
+			for (int p = 0; p < parents.length; p++) {
+				parentWords[p] = getWord(parents[p], w);
+			}
+
+			countCombinations(parentWords, 0, 0, rows, childWord, counts);
+		}
+	}
+
+	/**
+	 * Adds the counts of every combination of the parents from p onwards,
+	 * among the rows of a word which match the combination so far.
+	 *
+	 * @param parentWords - The word of each parent
+	 * @param p - Next parent to split the rows by
+	 * @param combination - Values of the parents before p, as a binary number
+	 * @param match - Bits of the rows matching those values
+	 * @param childWord - The word of the child
+	 * @param counts - Where to add the counts
+	 */
+	private static void countCombinations(long[] parentWords, int p, int combination, long match,
+			long childWord, int[] counts) {
+		if (match == 0) {
+			return;
+		}
+		if (p == parentWords.length) {
+			int numTrue = Long.bitCount(match & childWord);
+			counts[combination << 1] += Long.bitCount(match) - numTrue;
+			counts[(combination << 1) | 1] += numTrue;
+			return;
+		}
+
+		countCombinations(parentWords, p + 1, combination << 1, match & ~parentWords[p], childWord, counts);
+		countCombinations(parentWords, p + 1, (combination << 1) | 1, match & parentWords[p], childWord, counts);
+	}
+
+	/**
+	 * Counts the rows where each pair of variables are both true, with
+	 * one AND and popcount per word for each pair of columns. The diagonal
+	 * holds the number of rows where each variable is true.
+	 *
+	 * @return Counts indexed by the two variables, in either order
+	 */
+	public int[][] countPairs() {
+		int[][] counts = new int[numVariables][numVariables];
+
+		for (int i = 0; i < numVariables; i++) {
+			for (int j = i; j < numVariables; j++) {
+
+				int count = 0;
+				for (int w = 0; w < numWords; w++) {
+					count += Long.bitCount(getWord(i, w) & getWord(j, w));
+				}
+				counts[i][j] = count;
+				counts[j][i] = count;
+			}
+		}
+
+		return counts;
+	}
+
+	/**
+	 * @return Number of rows of data
+	 */
+	public int getNumRows() {
+		return numRows;
+	}
+
+	/**
+	 * @return Number of variables in each row
+	 */
+	public int getNumVariables() {
+		return numVariables;
+	}
+
+	/**
+	 * @return Number of longs used by each column
+	 */
+	public int getNumWords() {
+		return numWords;
+	}
+
+	/**
+	 * @return A row printed as a list of 0s and 1s, e.g. [0, 1, 1]
+	 */
+	public String rowToString(int row) {
+		StringBuilder sb = new StringBuilder("[");
+		for (int j = 0; j < numVariables; j++) {
+			if (j != 0) {
+				sb.append(", ");
+			}
+			sb.append(get(row, j) ? '1' : '0');
+		}
+		return sb.append(']').toString();
+	}
+}
@@ -33,7 +33,7 @@ public class Edge {
 
 	
 	public boolean equals(Edge edge) {
-		if (node1.getName().equals(edge.getParent().getName()) && node2.getName().equals(edge.getChild().getName())) {
+		if (node1.getIndex() == edge.getParent().getIndex() && node2.getIndex() == edge.getChild().getIndex()) {
 			return true;
 		}
 		return false;
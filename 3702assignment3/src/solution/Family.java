@@ -0,0 +1,56 @@
+package solution;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A node together with a set of parents, identified only by node indexes.
+ *
+ * Used as a key for anything calculated per family (such as its part of
+ * the score), since that only depends on which parents the node has and
+ * not on the order they were added in.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class Family {
+
+	/** Index of the child node **/
+	private final int child;
+
+	/** Indexes of the parent nodes **/
+	private final BitSet parents;
+
+
+	public Family(Node child, List<Node> parents) {
+		this.child = child.getIndex();
+		this.parents = new BitSet();
+		for (Node parent : parents) {
+			this.parents.set(parent.getIndex());
+		}
+	}
+
+	/**
+	 * @return Index of the child node
+	 */
+	public int getChild() {
+		return child;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * parents.hashCode() + child;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof Family)) {
+			return false;
+		}
+		Family other = (Family) o;
+		return child == other.child && parents.equals(other.parents);
+	}
+
+	public String toString() {
+		return child + " | " + parents;
+	}
+}
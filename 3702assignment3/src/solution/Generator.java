@@ -0,0 +1,357 @@
+package solution;
+
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates a data file by sampling rows from a known network, for testing
+ * at larger sizes than the given data and checking search finds the
+ * network again.
+ *
+ * The network is read from a file as written by Writer.writeDAG. Each row
+ * is sampled parents first, each node being true with the probability in
+ * its CPT for its parents' values. Rows are sampled in blocks on several
+ * threads, each block with its own generator seeded from the seed and the
+ * block number, so the same seed always gives the same file whatever the
+ * thread count, and different seeds never share blocks.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class Generator extends Global {
+	private final static Logger LOG = getLogger(Generator.class);
+
+	private final static String USAGE = "Usage: network.txt output.txt rows [threads] [seed] [--no-parents]";
+
+	/** Rows sampled by each task **/
+	public final static int BLOCK_ROWS = 8192;
+
+	/** Names of the nodes, in file order **/
+	private final List<String> names;
+
+	/** Parent indexes of each node, in file order **/
+	private final int[][] parents;
+
+	/** Probability of each node being true, as a fraction of 2^53, for
+	 * each combination of its parents (first parent is the highest bit) **/
+	private final long[][] thresholds;
+
+	/** Node indexes, with every node after its parents **/
+	private final int[] order;
+
+
+	/**
+	 * @param args - network.txt output.txt rows [threads] [seed] [--no-parents]
+	 */
+	public static void main(String[] args) {
+
+		List<String> values = new ArrayList<String>();
+		boolean withParents = true;
+		for (String arg : args) {
+			if (arg.equals("--no-parents")) {
+				withParents = false;
+			} else {
+				values.add(arg);
+			}
+		}
+
+		if (values.size() < 3 || values.size() > 5) {
+			log(ERROR, USAGE);
+			System.exit(1);
+		}
+
+		int rows = 0;
+		int threads = 1;
+		long seed = 3702;
+		try {
+			rows = Integer.parseInt(values.get(2));
+			if (values.size() > 3) {
+				threads = Integer.parseInt(values.get(3));
+			}
+			if (values.size() > 4) {
+				seed = Long.parseLong(values.get(4));
+			}
+			if (rows < 0) {
+				throw new IllegalArgumentException("Can't sample a negative number of rows: " + rows);
+			}
+			if (threads < 1) {
+				throw new IllegalArgumentException("Need at least one thread, not " + threads);
+			}
+		} catch (NumberFormatException e) {
+			log(ERROR, "Expected a number. " + e.getMessage());
+			log(ERROR, USAGE);
+			System.exit(1);
+		} catch (IllegalArgumentException e) {
+			log(ERROR, e.getMessage());
+			log(ERROR, USAGE);
+			System.exit(1);
+		}
+
+		Generator generator = null;
+		try {
+			generator = new Generator(values.get(0));
+		} catch (IOException e) {
+			e.printStackTrace();
+			log(ERROR, "Error reading network.");
+			System.exit(1);
+		}
+
+		try {
+			generator.generate(values.get(1), rows, threads, seed, withParents);
+		} catch (IOException e) {
+			e.printStackTrace();
+			log(ERROR, "Error Writing File!");
+			System.exit(1);
+		}
+	}
+
+
+	/**
+	 * Reads a network in the format written by Writer.writeDAG: a line of
+	 * name and parents for each node, then for each node again its line
+	 * followed by a line of its CPT, then a line of scores.
+	 *
+	 * @param filePath - Path to the network file
+	 * @throws IOException if the file isn't a valid network
+	 */
+	public Generator(String filePath) throws IOException {
+		DataTokenizer br = new DataTokenizer(new FileInputStream(filePath));
+		try {
+			// The first block ends when a name is seen a second time
+			names = new ArrayList<String>();
+			Map<String, Integer> indexes = new HashMap<String, Integer>();
+			while (true) {
+				String name = br.nextToken();
+				if (indexes.containsKey(name)) {
+					break;
+				}
+				indexes.put(name, names.size());
+				names.add(name);
+				br.nextLine();
+			}
+
+			int numNodes = names.size();
+			parents = new int[numNodes][];
+			thresholds = new long[numNodes][];
+
+			// The name of the first node in the second block is already read
+			for (int i = 0; i < numNodes; i++) {
+				String name = (i == 0) ? names.get(0) : br.nextToken();
+				Integer node = indexes.get(name);
+				if (node == null) {
+					throw new IOException("Unknown node " + name);
+				}
+
+				List<Integer> parentList = new ArrayList<Integer>();
+				while (!br.atEndOfLine()) {
+					Integer parent = indexes.get(br.nextToken());
+					if (parent == null) {
+						throw new IOException("Unknown parent of " + name);
+					}
+					parentList.add(parent);
+				}
+				br.nextLine();
+
+				parents[node] = new int[parentList.size()];
+				for (int p = 0; p < parentList.size(); p++) {
+					parents[node][p] = parentList.get(p);
+				}
+
+				thresholds[node] = new long[1 << parents[node].length];
+				for (int c = 0; c < thresholds[node].length; c++) {
+					double probability = Double.parseDouble(br.nextToken());
+					thresholds[node][c] = (long) (probability * (1L << 53));
+				}
+				br.nextLine();
+			}
+		} finally {
+			br.close();
+		}
+
+		order = findOrder(parents);
+
+		log(INFO, "Read network of " + names.size() + " nodes from " + filePath);
+	}
+
+
+	/**
+	 * Samples rows from the network and writes them as a data file.
+	 *
+	 * @param filePath - Path of the data file to write
+	 * @param numRows - Number of rows to sample
+	 * @param threads - Number of threads to sample with, at least 1
+	 * @param seed - Seed for the random numbers
+	 * @param withParents - false to write the file without node parents,
+	 * as for task4
+	 * @throws IOException
+	 * @throws IllegalArgumentException if threads is less than 1
+	 */
+	public void generate(String filePath, int numRows, int threads, long seed, boolean withParents)
+			throws IOException {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Need at least one thread to sample with, not " + threads);
+		}
+
+		log(INFO, "Sampling " + numRows + " rows with " + threads + " threads");
+
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(filePath), 1 << 16);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			out.write(header(numRows, withParents).getBytes("UTF-8"));
+
+			// A few blocks per thread at a time, written in order, so memory
+			// doesn't grow with the number of rows
+			int numBlocks = (numRows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+			for (int first = 0; first < numBlocks; first += threads * 2) {
+				List<Future<byte[]>> blocks = new ArrayList<Future<byte[]>>();
+				for (int block = first; block < Math.min(numBlocks, first + threads * 2); block++) {
+					// Mixing the seed first keeps neighbouring seeds' blocks apart
+					final long blockSeed = mix(mix(seed) ^ block);
+					final int blockRows = Math.min(BLOCK_ROWS, numRows - block * BLOCK_ROWS);
+					blocks.add(executor.submit(new Callable<byte[]>() {
+						@Override
+						public byte[] call() {
+							return sampleBlock(blockRows, blockSeed);
+						}
+					}));
+				}
+
+				for (Future<byte[]> block : blocks) {
+					out.write(block.get());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while sampling", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Error while sampling", e.getCause());
+		} finally {
+			executor.shutdown();
+			out.close();
+		}
+
+		log(INFO, "Wrote " + numRows + " rows to " + filePath);
+	}
+
+
+	/**
+	 * @return The lines before the data: sizes, then nodes
+	 */
+	private String header(int numRows, boolean withParents) {
+		StringBuilder header = new StringBuilder();
+		header.append(names.size()).append(' ').append(numRows).append('\n');
+
+		if (withParents) {
+			for (int i = 0; i < names.size(); i++) {
+				header.append(names.get(i));
+				for (int parent : parents[i]) {
+					header.append(' ').append(names.get(parent));
+				}
+				header.append('\n');
+			}
+		} else {
+			for (int i = 0; i < names.size(); i++) {
+				header.append((i == 0) ? "" : " ").append(names.get(i));
+			}
+			header.append('\n');
+		}
+
+		return header.toString();
+	}
+
+	/**
+	 * Samples rows, as the text of the data file.
+	 *
+	 * @param numRows - Number of rows to sample
+	 * @param seed - Seed for this block's random numbers
+	 * @return The rows, 0s and 1s separated by spaces
+	 */
+	private byte[] sampleBlock(int numRows, long seed) {
+		int numNodes = names.size();
+		byte[] text = new byte[numRows * numNodes * 2];
+		boolean[] values = new boolean[numNodes];
+		long state = seed;
+
+		int t = 0;
+		for (int row = 0; row < numRows; row++) {
+			for (int node : order) {
+				int combination = 0;
+				for (int parent : parents[node]) {
+					combination = (combination << 1) | (values[parent] ? 1 : 0);
+				}
+
+				// SplitMix64, taking the top 53 bits
+				state += 0x9E3779B97F4A7C15L;
+				values[node] = (mix(state) >>> 11) < thresholds[node][combination];
+			}
+
+			for (int i = 0; i < numNodes; i++) {
+				text[t++] = (byte) (values[i] ? '1' : '0');
+				text[t++] = (byte) ((i == numNodes - 1) ? '\n' : ' ');
+			}
+		}
+
+		return text;
+	}
+
+	/**
+	 * @return The nodes in an order where every node is after its parents
+	 * @throws IOException if the network has a cycle
+	 */
+	private static int[] findOrder(int[][] parents) throws IOException {
+		int numNodes = parents.length;
+		int[] order = new int[numNodes];
+		boolean[] placed = new boolean[numNodes];
+
+		int size = 0;
+		while (size < numNodes) {
+			int before = size;
+			for (int i = 0; i < numNodes; i++) {
+				if (placed[i]) {
+					continue;
+				}
+
+				boolean ready = true;
+				for (int parent : parents[i]) {
+					ready &= placed[parent];
+				}
+				if (ready) {
+					placed[i] = true;
+					order[size++] = i;
+				}
+			}
+
+			if (size == before) {
+				throw new IOException("Network has a cycle");
+			}
+		}
+
+		return order;
+	}
+
+	/**
+	 * The SplitMix64 mixing function, which scrambles a number into one
+	 * that looks random.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+
+	private static void log(int mode, String str) {
+		LOG.log(mode, str);
+	}
+}
@@ -1,7 +1,142 @@
 package solution;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Log levels, and the logger each class uses.
+ *
+ * Each class (component) logs through its own Logger, whose level can be
+ * changed while running, such as with -Dlog=DEBUG,Reader=ERROR or Main's
+ * --log option. Components default to INFO.
+ *
+ * Checking the level is a single field read, so logging that is turned
+ * off costs nothing as long as the message is only built once it is
+ * needed: with a Supplier, or inside a check of isEnabled.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
 public class Global {
 	public final static int ERROR = 0; // Nothing except critical errors
 	public final static int INFO = 1; // Only important information
 	public final static int DEBUG = 2; // Absolutely everything
-}
\ No newline at end of file
+
+	private final static String[] LEVEL_NAMES = {"ERROR", "INFO", "DEBUG"};
+
+	/** Every component's logger, by simple class name **/
+	private final static Map<String, Logger> loggers = new ConcurrentHashMap<>();
+
+	/** Levels set for components without a logger yet **/
+	private final static Map<String, Integer> levels = new ConcurrentHashMap<>();
+
+	/** Level of components not given one **/
+	private static volatile int defaultLevel = INFO;
+
+	static {
+		String spec = System.getProperty("log");
+		if (spec != null) {
+			configureLogging(spec);
+		}
+	}
+
+
+	/**
+	 * @param component - The class logging
+	 * @return The logger of that class
+	 */
+	public static Logger getLogger(Class<?> component) {
+		return loggers.computeIfAbsent(component.getSimpleName(),
+				name -> new Logger(levels.getOrDefault(name, defaultLevel)));
+	}
+
+	/**
+	 * Sets the level of one component, by its simple class name.
+	 */
+	public static void setLevel(String component, int level) {
+		levels.put(component, level);
+		Logger logger = loggers.get(component);
+		if (logger != null) {
+			logger.level = level;
+		}
+	}
+
+	/**
+	 * Sets the level of every component not given its own level.
+	 */
+	public static void setDefaultLevel(int level) {
+		defaultLevel = level;
+		for (Map.Entry<String, Logger> entry : loggers.entrySet()) {
+			if (!levels.containsKey(entry.getKey())) {
+				entry.getValue().level = level;
+			}
+		}
+	}
+
+	/**
+	 * Sets levels from a comma separated list, where a bare level is the
+	 * default and component=level sets one component.
+	 * For example "ERROR,Main=INFO,Reader=DEBUG".
+	 *
+	 * @param spec - The list of levels
+	 * @throws IllegalArgumentException if a level isn't ERROR, INFO or DEBUG
+	 */
+	public static void configureLogging(String spec) {
+		for (String part : spec.split(",")) {
+			part = part.trim();
+			if (part.isEmpty()) {
+				continue;
+			}
+
+			int equals = part.indexOf('=');
+			if (equals < 0) {
+				setDefaultLevel(parseLevel(part));
+			} else {
+				setLevel(part.substring(0, equals).trim(), parseLevel(part.substring(equals + 1)));
+			}
+		}
+	}
+
+	private static int parseLevel(String name) {
+		for (int level = 0; level < LEVEL_NAMES.length; level++) {
+			if (LEVEL_NAMES[level].equalsIgnoreCase(name.trim())) {
+				return level;
+			}
+		}
+		throw new IllegalArgumentException("Unknown log level " + name);
+	}
+
+
+	/**
+	 * Prints the messages of one component at or below its level.
+	 */
+	public static final class Logger {
+		private volatile int level;
+
+		private Logger(int level) {
+			this.level = level;
+		}
+
+		/**
+		 * @return true if messages of the given level are printed
+		 */
+		public boolean isEnabled(int mode) {
+			return mode <= level;
+		}
+
+		public void log(int mode, String str) {
+			if (mode <= level) {
+				System.out.println(str);
+			}
+		}
+
+		/**
+		 * Only builds the message if it will be printed.
+		 */
+		public void log(int mode, Supplier<String> message) {
+			if (mode <= level) {
+				System.out.println(message.get());
+			}
+		}
+	}
+}
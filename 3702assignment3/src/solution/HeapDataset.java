@@ -0,0 +1,45 @@
+package solution;
+
+/**
+ * A data table whose packed columns are kept on the heap, and so can be
+ * filled in and changed row by row, such as while reading a data file.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class HeapDataset extends Dataset {
+
+	/** The packed columns, indexed by variable then by word **/
+	private final long[][] columns;
+
+
+	/**
+	 * Creates an empty (all false) data table of the given size.
+	 *
+	 * @param numVariables - Number of variables in each row
+	 * @param numRows - Number of rows of data
+	 */
+	public HeapDataset(int numVariables, int numRows) {
+		super(numVariables, numRows);
+		this.columns = new long[numVariables][getNumWords()];
+	}
+
+	@Override
+	public long getWord(int variable, int word) {
+		return columns[variable][word];
+	}
+
+	/**
+	 * Sets the value of a variable in a row.
+	 *
+	 * @param row - Row to set
+	 * @param variable - Index of the variable (node) to set
+	 * @param value - The new value
+	 */
+	public void set(int row, int variable, boolean value) {
+		if (value) {
+			columns[variable][row >>> 6] |= 1L << row;
+		} else {
+			columns[variable][row >>> 6] &= ~(1L << row);
+		}
+	}
+}
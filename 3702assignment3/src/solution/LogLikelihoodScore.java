@@ -0,0 +1,76 @@
+package solution;
+
+/**
+ * The assignment's score: the log likelihood of the data, minus a penalty
+ * of c for every row. The penalty doesn't depend on the structure, so
+ * search with this score only stops adding edges once they no longer
+ * raise the likelihood at all.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class LogLikelihoodScore implements ScoringFunction {
+	private final double c;
+
+
+	public LogLikelihoodScore() {
+		this(1);
+	}
+
+	/**
+	 * @param c - Penalty for each row
+	 */
+	public LogLikelihoodScore(double c) {
+		this.c = c;
+	}
+
+	@Override
+	public double scoreFamily(int[] familyCounts, int numRows) {
+		return logLikelihood(familyCounts);
+	}
+
+	@Override
+	public double getConstant(int numRows) {
+		return -c * numRows;
+	}
+
+	/**
+	 * Rows are grouped by parent combination. If a combination occurs N
+	 * times, with the node true in Nt of them, it adds
+	 * Nt * log(Nt / N) + Nf * log(Nf / N) to the log likelihood.
+	 *
+	 * @param familyCounts - Counts of a family, as from Dataset.countFamily
+	 * @return The log likelihood of the family's child column
+	 */
+	public static double logLikelihood(int[] familyCounts) {
+		double logLikelihood = 0;
+
+		for (int combination = 0; combination < familyCounts.length / 2; combination++) {
+			int trueCount = familyCounts[2 * combination + 1];
+			int total = familyCounts[2 * combination] + trueCount;
+
+			logLikelihood += countLogProbability(trueCount, total);
+			logLikelihood += countLogProbability(total - trueCount, total);
+		}
+
+		return logLikelihood;
+	}
+
+	/**
+	 * One term of the log likelihood, added once for the rows of each
+	 * parent combination where the child is true and once where it is
+	 * false. Each is added on its own, so every sum is made in the same
+	 * order and gives exactly the same score.
+	 *
+	 * @return count * log(count / total), which is 0 when count is 0
+	 */
+	public static double countLogProbability(long count, long total) {
+		if (count == 0) {
+			return 0;
+		}
+		return count * Math.log((double) count / total);
+	}
+
+	public String toString() {
+		return "LL";
+	}
+}
@@ -1,7 +1,9 @@
 package solution;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * Main class for starting and running the program.
@@ -9,32 +11,166 @@ import java.util.*;
  * @author Cameron Darragh Addison Gourluck
  */
 public class Main extends Global {
-	public final static int MODE = DEBUG; // Current debug mode
+	private final static Logger LOG = getLogger(Main.class);
+	
+	private final static String USAGE = "Usage: dataset mode [threads] [stream] [adtree] [-o output]"
+			+ " [--score name] [--time seconds] [--iterations n] [--min-improvement x]"
+			+ " [--snapshot seconds] [--tabu n] [--restarts n] [--moves best|first|queue]"
+			+ " [--max-parents n] [--candidates k] [--log levels]";
 
 	/**
-	 * @param args - filepath mode
+	 * @param args - dataset mode [threads] [stream] [adtree] [-o output] [--score name]
+	 *     [--time seconds] [--iterations n] [--min-improvement x] [--snapshot seconds]
+	 *     [--tabu n] [--restarts n] [--moves best|first|queue] [--max-parents n]
+	 *     [--candidates k] [--log levels]
+	 * 
+	 * The dataset is a path to a data file, or the name of one in data/.
+	 * Output goes to solutions/ unless another path is given with -o.
+	 * stream only applies to task1 and task2 on text data. Log
+	 * levels are as for Global.configureLogging, e.g. "ERROR,Main=INFO".
+	 * Searches score networks with ll (the default), bic, aic or bdeu, see
+	 * ScoringFunction.forName. Searches stop after --time seconds (175 by
+	 * default) or --iterations moves, or once no move improves the score
+	 * by more than --min-improvement (0 by default), and with --snapshot
+	 * write the best network so far to the output at most that often.
+	 * --tabu keeps climbing past a local optimum without undoing the last
+	 * n moves, and --restarts climbs again n times from random changes to
+	 * the best network, in parallel with several threads. --moves picks
+	 * how each iteration chooses its move, see Search.Selection.
+	 * --max-parents limits how many parents search gives a node, and
+	 * --candidates only lets it choose from the k nodes each has most
+	 * mutual information with.
 	 */
 	public static void main(String[] args) {
 		
-		if (args.length != 2) { // just for now
-			log(ERROR, "Usage: dataset mode");
+		if (args.length < 2) {
+			log(ERROR, USAGE);
 			System.exit(1);
 		}
 		
-		String filename = args[0];
-		String filepath = "data/" + filename + ".txt";
+		String dataset = args[0];
 		String mode = args[1];
 		
+		// Either a path to a data file, or a data file name without ".txt".
+		// Binary data files are given with their extension, see Converter
+		String filepath;
+		String filename;
+		if (new File(dataset).isFile()) {
+			filepath = dataset;
+			filename = new File(dataset).getName();
+		} else {
+			filepath = "data/" + dataset + (dataset.endsWith(".bin") ? "" : ".txt");
+			filename = dataset;
+		}
+		boolean binary = filepath.endsWith(".bin");
+		if (filename.endsWith(".txt") || filename.endsWith(".bin")) {
+			filename = filename.substring(0, filename.length() - ".txt".length());
+		}
+		
+		// Number of threads to search for a DAG with, whether task1 and task2
+		// count the data as it is read instead of holding it, whether counts
+		// are answered by an AD-tree, and where to write the output
+		int threads = 1;
+		boolean stream = false;
+		boolean adtree = false;
+		String output = null;
+		ScoringFunction scoring = null;
+		long timeLimit = Search.DEFAULT_TIME_LIMIT;
+		int maxIterations = Integer.MAX_VALUE;
+		double minImprovement = 0;
+		long snapshotInterval = -1;
+		int tabuTenure = 0;
+		int restarts = 0;
+		Search.Selection selection = Search.Selection.BEST;
+		int maxParents = Integer.MAX_VALUE;
+		int candidates = 0;
+		
+		// A bad value or unknown argument prints the usage rather than a stack trace
+		try {
+			for (int i = 2; i < args.length; i++) {
+				if (args[i].equals("stream")) {
+					if (!mode.equals("task1") && !mode.equals("task2")) {
+						throw new IllegalArgumentException("stream only applies to task1 and task2");
+					}
+					if (binary) {
+						throw new IllegalArgumentException("stream can't be used with binary data,"
+								+ " which is already counted from the file without being held");
+					}
+					stream = true;
+				} else if (args[i].equals("adtree")) {
+					adtree = true;
+				} else if (args[i].equals("-o") && i + 1 < args.length) {
+					output = args[++i];
+				} else if (args[i].equals("--score") && i + 1 < args.length) {
+					scoring = ScoringFunction.forName(args[++i]);
+				} else if (args[i].equals("--time") && i + 1 < args.length) {
+					timeLimit = parseMillis(args[i], args[++i]);
+				} else if (args[i].equals("--iterations") && i + 1 < args.length) {
+					maxIterations = parseCount(args[i], args[++i], 0);
+				} else if (args[i].equals("--min-improvement") && i + 1 < args.length) {
+					minImprovement = Double.parseDouble(args[++i]);
+					if (Double.isNaN(minImprovement)) {
+						throw new IllegalArgumentException("--min-improvement must be a number");
+					}
+				} else if (args[i].equals("--snapshot") && i + 1 < args.length) {
+					snapshotInterval = parseMillis(args[i], args[++i]);
+				} else if (args[i].equals("--tabu") && i + 1 < args.length) {
+					tabuTenure = parseCount(args[i], args[++i], 0);
+				} else if (args[i].equals("--restarts") && i + 1 < args.length) {
+					restarts = parseCount(args[i], args[++i], 0);
+				} else if (args[i].equals("--moves") && i + 1 < args.length) {
+					selection = parseSelection(args[++i]);
+				} else if (args[i].equals("--max-parents") && i + 1 < args.length) {
+					maxParents = parseCount(args[i], args[++i], 0);
+				} else if (args[i].equals("--candidates") && i + 1 < args.length) {
+					candidates = parseCount(args[i], args[++i], 0);
+				} else if (args[i].equals("--log") && i + 1 < args.length) {
+					configureLogging(args[++i]);
+				} else if (args[i].startsWith("-")) {
+					throw new IllegalArgumentException("Unknown option, or missing value: " + args[i]);
+				} else {
+					threads = parseCount("threads", args[i], 1);
+				}
+			}
+		} catch (NumberFormatException e) {
+			log(ERROR, "Expected a number. " + e.getMessage());
+			log(ERROR, USAGE);
+			System.exit(1);
+		} catch (IllegalArgumentException e) {
+			log(ERROR, e.getMessage());
+			log(ERROR, USAGE);
+			System.exit(1);
+		}
+		
+		// How task4 and task7 search
+		Search search = new Search(threads);
+		search.setTimeLimit(timeLimit);
+		search.setMaxIterations(maxIterations);
+		search.setMinImprovement(minImprovement);
+		search.setTabuTenure(tabuTenure);
+		search.setRestarts(restarts);
+		search.setSelection(selection);
+		search.setMaxParents(maxParents);
+		search.setCandidates(candidates);
+		
 		BayesianNetwork bayonet;
 		
 		switch (mode) {
 			case "task1":			// Create file that calculates CPT of each node
 				
-				// Create Bayesian Network from file
-				bayonet = Reader.readFile(filepath);
-				
-				filename = "cpt-" + filename + ".txt";
+				filename = (output != null) ? output : "solutions/cpt-" + filename + ".txt";
 				try {
+					if (stream) {
+						Writer.writeCPT(filename, Reader.streamFile(filepath));
+						break;
+					}
+					
+					// Create Bayesian Network from file
+					bayonet = readNetwork(filepath, binary, true, adtree);
+					if (threads > 1) {
+						countFamilies(bayonet, threads);
+					}
+					
 					Writer.writeCPT(filename, bayonet);
 				} catch(IOException e) {
 					log(ERROR, "Error Writing File!");
@@ -45,8 +181,16 @@ public class Main extends Global {
 				
 			case "task2":			// Outputs the likelihood and log likelihood of given data
 				
+				if (stream) {
+					printLikelihoods(Reader.streamFile(filepath));
+					break;
+				}
+				
 				// Create Bayesian Network from file
-				bayonet = Reader.readFile(filepath);
+				bayonet = readNetwork(filepath, binary, true, adtree);
+				if (threads > 1) {
+					countFamilies(bayonet, threads);
+				}
 				
 				printLikelihoods(bayonet);
 				break;
@@ -54,10 +198,16 @@ public class Main extends Global {
 			case "task4":			// Create file that has CPT data when no parents are given
 				
 				// Create Bayesian Network from file
-				bayonet = Reader.readFileNoParents(filepath);
+				bayonet = readNetwork(filepath, binary, false, adtree);
+				if (scoring != null) {
+					bayonet.setScoringFunction(scoring);
+				}
 				
-				bayonet = createDAG(bayonet, mode);
-				filename = "bn-" + filename + ".txt";
+				filename = (output != null) ? output : "solutions/bn-" + filename + ".txt";
+				if (snapshotInterval >= 0) {
+					search.addSnapshots(filename, snapshotInterval);
+				}
+				bayonet = createDAG(bayonet, mode, search);
 				try {
 					Writer.writeDAG(filename, bayonet);
 				} catch(IOException e) {
@@ -69,10 +219,16 @@ public class Main extends Global {
 			case "task7":			// Create file that has CPT data when no parents are given
 				
 				// Create Bayesian Network from file
-				bayonet = Reader.readFileNoParents(filepath);
+				bayonet = readNetwork(filepath, binary, false, adtree);
+				if (scoring != null) {
+					bayonet.setScoringFunction(scoring);
+				}
 				
-				bayonet = createDAG(bayonet, mode);
-				filename = "bn-" + filename + ".txt";
+				filename = (output != null) ? output : "solutions/bn-" + filename + ".txt";
+				if (snapshotInterval >= 0) {
+					search.addSnapshots(filename, snapshotInterval);
+				}
+				bayonet = createDAG(bayonet, mode, search);
 				try {
 					Writer.writeDAG(filename, bayonet);
 				} catch(IOException e) {
@@ -89,9 +245,103 @@ public class Main extends Global {
 	}
 	
 	
-	private static void printLikelihoods(BayesianNetwork bayonet) {
-		double likelihood = bayonet.calculateMaximumLikelihood();
-		double logLikelihood = bayonet.calculateLogLikelihood();
+	/**
+	 * Reads a network from a text or binary data file.
+	 * 
+	 * @param filepath - Path to the file
+	 * @param binary - true if the file is a binary data file
+	 * @param withParents - true if the file gives node parents
+	 * @param adtree - true to index the data with an AD-tree
+	 * @return the network read
+	 */
+	private static BayesianNetwork readNetwork(String filepath, boolean binary,
+			boolean withParents, boolean adtree) {
+		BayesianNetwork bayonet;
+		if (binary) {
+			bayonet = Reader.readBinaryFile(filepath, withParents);
+		} else if (withParents) {
+			bayonet = Reader.readFile(filepath);
+		} else {
+			bayonet = Reader.readFileNoParents(filepath);
+		}
+		
+		if (adtree) {
+			bayonet.useADTree(ADTree.DEFAULT_LEAF_THRESHOLD);
+		}
+		return bayonet;
+	}
+	
+	
+	/**
+	 * @param option - Name of the option, for the error message
+	 * @param value - The option's value, a whole number
+	 * @param min - Smallest value allowed
+	 * @return The value
+	 * @throws IllegalArgumentException if the value isn't a number, or is
+	 * less than min
+	 */
+	private static int parseCount(String option, String value, int min) {
+		int count = Integer.parseInt(value);
+		if (count < min) {
+			throw new IllegalArgumentException(option + " must be at least " + min + ", not " + count);
+		}
+		return count;
+	}
+	
+	/**
+	 * @param option - Name of the option, for the error message
+	 * @param value - The option's value, a number of seconds
+	 * @return The value in milliseconds
+	 * @throws IllegalArgumentException if the value isn't a number, or is
+	 * negative
+	 */
+	private static long parseMillis(String option, String value) {
+		double seconds = Double.parseDouble(value);
+		if (!(seconds >= 0)) {
+			throw new IllegalArgumentException(option + " must be a number of seconds, not " + value);
+		}
+		return (long) (seconds * 1000);
+	}
+	
+	/**
+	 * @param name - best, first or queue
+	 * @return The move selection of that name
+	 */
+	private static Search.Selection parseSelection(String name) {
+		switch (name) {
+			case "best":
+				return Search.Selection.BEST;
+			case "first":
+				return Search.Selection.FIRST_IMPROVEMENT;
+			case "queue":
+				return Search.Selection.PRIORITY_QUEUE;
+			default:
+				throw new IllegalArgumentException("Unknown move selection " + name);
+		}
+	}
+	
+	
+	/**
+	 * Counts every family of the network at once, in parallel, so its CPTs
+	 * and log likelihood are ready before they are needed.
+	 * 
+	 * @param bayonet - Network with its parents already set
+	 * @param threads - Number of threads to count with
+	 */
+	private static void countFamilies(BayesianNetwork bayonet, int threads) {
+		log(INFO, "Counting families with " + threads + " threads");
+		CountingKernel kernel = new CountingKernel(threads);
+		try {
+			bayonet.countFamilies(kernel);
+		} finally {
+			kernel.shutdown();
+		}
+	}
+	
+	
+	private static void printLikelihoods(NetworkStatistics statistics) {
+		double likelihood = statistics.calculateMaximumLikelihood();
+		double logLikelihood = statistics.calculateLogLikelihood();
 		
 		System.err.println("Maximum Likelihood estimate is: " + likelihood);
 		System.err.println("Maximum Log Likelihood estimate is: " + logLikelihood);
@@ -103,344 +353,55 @@ public class Main extends Global {
 	 * for nodes on a data set that does not give node parents.
 	 * 
 	 * @param bayonet - The network of nodes and data with no node relationships
+	 * @param threads - Number of threads to score possible moves with
 	 * 
 	 * @return the new network with edges between nodes
 	 */
-	public static BayesianNetwork createDAG(BayesianNetwork bayonet, String mode) {
-		
-		log(INFO, mode);
-		
-		// create no edge (Note this is initialization for task6 as well)
-		bayonet = createNoEdgeDAG(bayonet);
-		
-		// If task 7, create best tree network
-		if(mode.equals("task7")) {
-			log(INFO, "Creating full DAG");
-			bayonet = createFullDAG(bayonet);
-			log(INFO, "Creating spanning tree");
-			bayonet = createMinimumSpanningTree(bayonet);
-		}
-		
-		// While time taken < 2 mins, 55 seconds
-		long startTime = System.currentTimeMillis();
-		double bestScore = -2500; // Really low number
-		while((System.currentTimeMillis() - startTime) < 1000 * 175) {
-			
-			log(INFO, "\n\n");
-			
-			
-			
-		
-			boolean changed = false;
-			BayesianNetwork bestNetwork = new BayesianNetwork(bayonet);
-		
-			// Possible actions: create an edge (each pair of nodes), remove an edge from list, change direction of edge
-		
-			// For each possible action
-			
-			Map<String, Node> nodes = bayonet.getNodes();
-			List<Edge> edges = bayonet.getEdges();
-			
-			for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
-				
-				Node node = nodeElement.getValue();
-				
-				String debugStr = node.getName() + ": ";
-				for(Node ancestor : node.getAncestors()) {
-					debugStr += ancestor.toString();
-				}
-				log(INFO, debugStr + "\n");
-			}
-			
-			
-			// Add action
-			
-			// For each node
-			for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
-				
-				Node node1 = nodeElement.getValue();
-			
-				// For each node
-				for (Map.Entry<String, Node> nodeElement2 : nodes.entrySet()) {
-					
-					Node node2 = nodeElement2.getValue();
-			
-					// If nodes are not the same
-					if(!node1.equals(node2)) {
-			
-						// Copy bayonet
-						BayesianNetwork tempNetwork = new BayesianNetwork(bayonet);
-						
-						// Get the equivalent nodes from the new network so not updating the same nodes
-						Node newNode1 = tempNetwork.getNodeByName(node1.getName());
-						Node newNode2 = tempNetwork.getNodeByName(node2.getName());
-				
-						// Create edge between these nodes
-						Edge newEdge = new Edge(newNode1, newNode2);
-				
-						// Add the edge to the network
-						if(tempNetwork.addEdge(newEdge)) {
-						
-							log(INFO, "Tried adding new edge " + newNode1 + ", " + newNode2);
-							
-							// Check DAG is still valid
-							if(tempNetwork.checkValidDAG()) {
-					
-								// Calculate the score
-								double score = tempNetwork.calculateScore();
-								
-								log(INFO, "Old score is " + bestScore + ", new score is " + score);
-						
-								// If score is better
-								if(score > bestScore) {
-									
-									log(INFO, "New best score! Added edge " + node1 + ", " + node2);
-						
-									// Set this as new best network
-									bestScore = score;
-									bestNetwork = new BayesianNetwork(tempNetwork);
-									changed = true;
-								}
-							} else {
-								log(INFO, "New edge was invalid");
-							}
-						}
-					}
-				}
-			}
-			
-			
-			// Remove action
-			
-			// For each edge in bayonet
-			for(int i = 0; i < edges.size(); i++) {
-			
-				// Copy the  bayonet
-				BayesianNetwork tempNetwork = new BayesianNetwork(bayonet);
-				
-				// Get equivalent edge in new network
-				Edge newEdge = tempNetwork.getEquivalentEdge(edges.get(i));
-			
-				// remove the edge from copy
-				tempNetwork.removeEdge(newEdge);
-				
-				log(INFO, "Tried removing edge " + newEdge.getParent() + ", " + newEdge.getChild());
-				
-				// Check DAG is still valid
-				if(tempNetwork.checkValidDAG()) {
-				
-					double score = tempNetwork.calculateScore();
-					
-					log(INFO, "Old score is " + bestScore + ", new score is " + score);
-				
-					// Calculate if score is better
-					if(score > bestScore) {
-						
-						log(INFO, "New best score");
-						// Set this as new best network
-						bestScore = score;
-						bestNetwork = new BayesianNetwork(tempNetwork);
-						changed = true;
-					}
-				}
-			}
-			
-			
-			// Reverse action
-			
-			// For each edge in bayonet
-			
-			for(int i = 0; i < edges.size(); i++) {
-				
-				// Copy the  bayonet
-				BayesianNetwork tempNetwork = new BayesianNetwork(bayonet);
-				
-				// Get equivalent edge in new network
-				Edge newEdge = tempNetwork.getEquivalentEdge(edges.get(i));
-				
-				log(INFO, "Tried reversing edge " + newEdge.getParent() + ", " + newEdge.getChild());
-			
-				// reverse the edge from copy
-				tempNetwork.reverseEdge(newEdge);
-				
-				// Check DAG is valid
-				if(tempNetwork.checkValidDAG()) {
-				
-					double score = tempNetwork.calculateScore();
-					
-					log(INFO, "Old score is " + bestScore + ", new score is " + score);
-				
-					// Calculate if score is better
-					if(score > bestScore) {
-				
-						log(INFO, "New best score, edge is now reverse");
-						// Set this as new best network
-						bestScore = score;
-						bestNetwork = new BayesianNetwork(tempNetwork);
-						changed = true;
-					}
-				}
-			}
-			
-		
-			// If network didn't change, return
-			if(!changed) {
-				log(INFO, "Optimal network found");
-				return bayonet;
-				
-			} else {
-				// Set bayonet to be the best
-				bayonet = new BayesianNetwork(bestNetwork);
-				log(DEBUG, "New best network!");
-			}
-		}
-		
-		return bayonet;
+	public static BayesianNetwork createDAG(BayesianNetwork bayonet, String mode, int threads) {
+		return createDAG(bayonet, mode, new Search(threads));
 	}
 	
 	
 	/**
-	 * Creates a complete graph with an edge from every node to every node
+	 * Creates the DAG as above, searching with the given limits and
+	 * listeners.
 	 * 
-	 * @param bayonet
-	 * @return
+	 * @param bayonet - The network of nodes and data with no node relationships
+	 * @param search - The search to find the edges with
+	 * 
+	 * @return the new network with edges between nodes
 	 */
-	public static BayesianNetwork createFullDAG(BayesianNetwork bayonet) {
+	public static BayesianNetwork createDAG(BayesianNetwork bayonet, String mode, Search search) {
 		
-		log(INFO, "Creating DAG");
-		
-		// For each node
-		Map<String, Node> nodes = bayonet.getNodes();
-		for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
-			
-			Node node1 = nodeElement.getValue();
-			
-			log(INFO, "Node 1 is " + node1);
+		log(INFO, mode);
 		
-			// For each other node
-			for (Map.Entry<String, Node> nodeElement2 : nodes.entrySet()) {
-				
-				Node node2 = nodeElement2.getValue();
-				
-				log(INFO, "Node 2 is " + node2);
-				
-				if(!node1.equals(node2)) {
+		// create no edge (Note this is initialization for task6 as well)
+		bayonet = createNoEdgeDAG(bayonet);
 		
-					// Create a new edge between the two nodes
-					Edge newEdge = new Edge(node1, node2);
-					bayonet.addEdge(newEdge);
-					log(INFO, "Added edge");
-				}
-			}
+		// If task 7, create best tree network
+		if(mode.equals("task7")) {
+			log(INFO, "Creating spanning tree");
+			bayonet = ChowLiuTree.createTree(bayonet);
 		}
 		
-		return bayonet;
+		return search.search(bayonet);
 	}
 	
 	
 	public static BayesianNetwork createNoEdgeDAG(BayesianNetwork bayonet) {
-		// For each node
-		Map<String, Node> nodes = bayonet.getNodes();
-		for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
-			
-			Node node = nodeElement.getValue();
-			
-			// Remove all parents from node
-			node.removeAllParents();
-			
-			// empty list of edges
-			bayonet.removeEdges();
-		}
+		// Empty list of edges, which also removes all parents from each node
+		bayonet.removeEdges();
 		
 		// return the network
 		return bayonet;
 	}
 	
 	
-	public static BayesianNetwork createNaiveDAG(BayesianNetwork bayonet) {
-		
-		// Get first node in network
-		Map<String, Node> nodes = bayonet.getNodes();
-		for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
-			
-			Node node1 = nodeElement.getValue();
-		
-			// Add all other nodes as parents
-			for (Map.Entry<String, Node> nodeElement2 : nodes.entrySet()) {
-				Node node2 = nodeElement2.getValue();
-				if (!node1.equals(node2)) {
-					log(DEBUG, node1 + " added child " + node2);
-					bayonet.addEdge(new Edge(node1, node2));
-				}
-			}
-			return bayonet;
-		}
-		return bayonet;
-	}
-	
-	
-	public static BayesianNetwork createMinimumSpanningTree(final BayesianNetwork bayonet) {
-		
-		// Create empty Map of nodes
-		Map<String, Node> nodes = new HashMap<String, Node>();
-		
-		// Create empty list of edges
-		ArrayList<Edge> newEdges = new ArrayList<Edge>();
-		List<Edge> edges = bayonet.getEdges();
-		
-		log(INFO, edges.size() + "");
-		
-		// Sort list of edges by smallest weight
-		Collections.sort(edges, new Comparator<Edge>() {
-			@Override
-			public int compare(Edge edge1, Edge edge2) {
-				Double weight1 = bayonet.getWeight(edge1.getParent(), edge1.getChild());
-				Double weight2 = bayonet.getWeight(edge1.getParent(), edge1.getChild());
-				return (weight1.compareTo(weight2));
-			}
-		});
-		
-		log(DEBUG, "sorted weights is " + edges);
-		
-		// For each edge in ascending order
-		for(Edge edge : edges) {
-		
-			// If both nodes on edge are not in list of nodes
-			if(nodes.isEmpty() || !(nodes.containsValue(edge.getParent()) && nodes.containsValue(edge.getChild()))) {
-		
-				
-				log(DEBUG, "Adding edge " + edge);
-				// Add edge to new list
-				newEdges.add(edge);
-				
-				
-				
-		
-				// Add each node to node list
-				if(!nodes.containsValue(edge.getParent())) {
-					log(DEBUG, "Adding Node " + edge.getParent());
-					nodes.put(edge.getParent().getName(), edge.getParent());
-				}
-				
-				if(!nodes.containsValue(edge.getChild())) {
-					log(DEBUG, "Adding node " + edge.getChild());
-					nodes.put(edge.getChild().getName(), edge.getChild());
-				}
-			}
-		}
-		
-		// Set edges of network to new edge list
-		bayonet.removeEdges();
-		bayonet.setEdges(newEdges);
-	
-		return bayonet;
+	private static void log(int mode, String str) {
+		LOG.log(mode, str);
 	}
 	
-	
-	
-	private static void log(int mode, String str) {
-		if (MODE >= mode) {
-			System.out.println(str);
-		}
+	private static void log(int mode, Supplier<String> message) {
+		LOG.log(mode, message);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package solution;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A data table whose packed columns stay in a binary data file, mapped
+ * into memory, rather than being read onto the heap.
+ *
+ * Opening one costs almost nothing, and the operating system pages the
+ * columns in as they are counted, so the data can be bigger than the heap.
+ * The file is mapped read only, so unlike HeapDataset there is no set.
+ * See Writer.writeBinary for the file format.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class MappedDataset extends Dataset {
+	/** "BDNT" - the first four bytes of every binary data file, as the
+	 * int is written little endian **/
+	public final static int MAGIC = 0x544E4442;
+	public final static int VERSION = 1;
+
+	/** Bytes before the node list: magic, version, nodes, rows, data offset **/
+	public final static int HEADER_SIZE = 24;
+
+	/** The mapped columns, one buffer per variable **/
+	private final LongBuffer[] columns;
+
+
+	/**
+	 * Maps every column of a binary data file.
+	 *
+	 * @param channel - Channel open on the file, which can be closed after
+	 * @param dataOffset - Where in the file the first column starts
+	 * @param numVariables - Number of variables in each row
+	 * @param numRows - Number of rows of data
+	 * @throws IOException if the file is too short or can't be mapped
+	 */
+	public MappedDataset(FileChannel channel, long dataOffset, int numVariables, int numRows)
+			throws IOException {
+		super(numVariables, numRows);
+
+		long columnBytes = (long) getNumWords() << 3;
+		if (channel.size() < dataOffset + columnBytes * numVariables) {
+			throw new IOException("Data file is shorter than its header says");
+		}
+
+		this.columns = new LongBuffer[numVariables];
+		for (int v = 0; v < numVariables; v++) {
+			columns[v] = channel.map(FileChannel.MapMode.READ_ONLY,
+					dataOffset + columnBytes * v, columnBytes)
+					.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+		}
+	}
+
+	@Override
+	public long getWord(int variable, int word) {
+		return columns[variable].get(word);
+	}
+}
@@ -0,0 +1,109 @@
+package solution;
+
+/**
+ * A single change to the structure of a network during search: adding,
+ * removing or reversing the edge from parent to child.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class Move {
+
+	public enum Type {
+		ADD, REMOVE, REVERSE
+	}
+
+	private final Type type;
+	private final Node parent;
+	private final Node child;
+
+
+	/**
+	 * @param type - What to do to the edge
+	 * @param parent - The node the edge comes from (before the move)
+	 * @param child - The node the edge goes to (before the move)
+	 */
+	public Move(Type type, Node parent, Node child) {
+		this.type = type;
+		this.parent = parent;
+		this.child = child;
+	}
+
+	/**
+	 * Calculates how much the move would change the score of the network,
+	 * without changing the network.
+	 *
+	 * @param bayonet - The network the move's nodes belong to
+	 * @return The change in score
+	 */
+	public double calculateScoreChange(BayesianNetwork bayonet) {
+		switch (type) {
+			case ADD:
+				return bayonet.calculateAddScoreChange(parent, child);
+			case REMOVE:
+				return bayonet.calculateRemoveScoreChange(new Edge(parent, child));
+			default:
+				return bayonet.calculateReverseScoreChange(new Edge(parent, child));
+		}
+	}
+
+	/**
+	 * Checks if making this move would leave the network with a cycle,
+	 * without changing the network.
+	 *
+	 * @param bayonet - The network the move's nodes belong to
+	 * @return true if the network would no longer be a valid DAG
+	 */
+	public boolean createsCycle(BayesianNetwork bayonet) {
+		switch (type) {
+			case ADD:
+				return bayonet.wouldCreateCycle(parent, child);
+			case REMOVE:
+				return false;
+			default:
+				return bayonet.wouldReverseCreateCycle(bayonet.getEdge(parent, child));
+		}
+	}
+
+	/**
+	 * Makes this move on the network itself.
+	 *
+	 * Note this doesn't check the network is still a valid DAG, see
+	 * createsCycle.
+	 *
+	 * @param bayonet - The network the move's nodes belong to
+	 * @return false if the move can't be made, in which case nothing changed
+	 */
+	public boolean apply(BayesianNetwork bayonet) {
+		if (type == Type.ADD) {
+			return bayonet.addEdge(new Edge(parent, child));
+		}
+
+		Edge edge = bayonet.getEdge(parent, child);
+		if (edge == null) {
+			return false;
+		}
+
+		if (type == Type.REMOVE) {
+			bayonet.removeEdge(edge);
+		} else {
+			bayonet.reverseEdge(edge);
+		}
+		return true;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public Node getParent() {
+		return parent;
+	}
+
+	public Node getChild() {
+		return child;
+	}
+
+	public String toString() {
+		return type + " " + parent.getName() + child.getName();
+	}
+}
@@ -0,0 +1,232 @@
+package solution;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The possible moves of a network during search, best first, with the
+ * score change of each kept from one iteration to the next.
+ *
+ * A move only changes the score of its child's family (and its parent's,
+ * for a reverse), so after a move is made only the moves between a node
+ * whose family changed and any other node need scoring again. That is
+ * O(N) moves each iteration rather than all O(N^2).
+ *
+ * Moves are kept by the pair of nodes they join. Each pair has a stamp
+ * which changes whenever its moves are replaced, and a queued move with
+ * an old stamp is dropped when it reaches the front. Old moves with poor
+ * scores may never reach the front, so the heap is rebuilt without them
+ * once they outnumber the moves still up to date.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class MoveQueue {
+
+	/**
+	 * A move, its score change, and the stamp of its pair when scored.
+	 */
+	public static class Entry implements Comparable<Entry> {
+		private final Move move;
+		private final double change;
+		private final int pair;
+		private final long stamp;
+
+		private Entry(Move move, double change, int pair, long stamp) {
+			this.move = move;
+			this.change = change;
+			this.pair = pair;
+			this.stamp = stamp;
+		}
+
+		public Move getMove() {
+			return move;
+		}
+
+		public double getChange() {
+			return change;
+		}
+
+		/**
+		 * Best change first. Ties go to adds, then removes, then reverses,
+		 * then to the lowest parent and child indexes.
+		 */
+		@Override
+		public int compareTo(Entry other) {
+			int result = Double.compare(other.change, change);
+			if (result != 0) {
+				return result;
+			}
+			result = move.getType().compareTo(other.move.getType());
+			return (result != 0) ? result : Integer.compare(pair, other.pair);
+		}
+	}
+
+	private final BayesianNetwork bayonet;
+	private final CandidateParents parentLimits;
+	private final int numNodes;
+	private final PriorityQueue<Entry> queue;
+
+	/** Smallest heap worth rebuilding **/
+	private final static int MIN_REBUILD_SIZE = 256;
+
+	/** Stamp of each pair of nodes, by parent * numNodes + child **/
+	private final long[] stamps;
+
+	/** Up to date entries queued for each pair, and in total **/
+	private final int[] liveCounts;
+	private int live;
+
+	/** The call of getMoves which last listed each pair, so nothing needs
+	 * clearing between calls **/
+	private final int[] listedIn;
+	private int listing;
+
+
+	/**
+	 * Creates an empty queue. Every move must then be given to push, such
+	 * as from getMoves with every node.
+	 *
+	 * @param bayonet - The network searched
+	 * @param parentLimits - Which parents moves may add
+	 */
+	public MoveQueue(BayesianNetwork bayonet, CandidateParents parentLimits) {
+		this.bayonet = bayonet;
+		this.parentLimits = parentLimits;
+		this.numNodes = bayonet.getNodes().size();
+		this.queue = new PriorityQueue<Entry>();
+		this.stamps = new long[numNodes * numNodes];
+		this.liveCounts = new int[numNodes * numNodes];
+		this.listedIn = new int[numNodes * numNodes];
+	}
+
+
+	/**
+	 * Lists the moves of every pair of nodes with at least one in the
+	 * given set, which are all the moves whose score changes when those
+	 * nodes' families change. Their old entries are out of date from now.
+	 *
+	 * @param changed - Indexes of the nodes whose families changed
+	 * @return The moves to score and push
+	 */
+	public List<Move> getMoves(BitSet changed) {
+		List<Move> moves = new ArrayList<Move>();
+		listing++;
+
+		for (int node = changed.nextSetBit(0); node >= 0; node = changed.nextSetBit(node + 1)) {
+			for (int other = 0; other < numNodes; other++) {
+				if (other == node) {
+					continue;
+				}
+				addMoves(moves, other, node);
+				addMoves(moves, node, other);
+			}
+		}
+
+		// Leave the heap with at most as many old entries as up to date ones
+		if (queue.size() > MIN_REBUILD_SIZE && queue.size() - live > live) {
+			queue.removeIf(entry -> entry.stamp != stamps[entry.pair]);
+		}
+
+		return moves;
+	}
+
+	/**
+	 * Queues moves with their score changes, replacing any older entries
+	 * for the same pairs of nodes.
+	 *
+	 * @param moves - Moves from getMoves
+	 * @param changes - The score change of each
+	 */
+	public void push(List<Move> moves, double[] changes) {
+		for (int i = 0; i < changes.length; i++) {
+			Move move = moves.get(i);
+			int pair = getPair(move.getParent().getIndex(), move.getChild().getIndex());
+			queue.add(new Entry(move, changes[i], pair, stamps[pair]));
+			liveCounts[pair]++;
+			live++;
+		}
+	}
+
+	/**
+	 * Puts back entries taken by poll which weren't made, such as ones
+	 * which would have made a cycle.
+	 */
+	public void putBack(List<Entry> entries) {
+		for (Entry entry : entries) {
+			if (entry.stamp == stamps[entry.pair]) {
+				queue.add(entry);
+				liveCounts[entry.pair]++;
+				live++;
+			}
+		}
+	}
+
+	/**
+	 * @return The move with the best score change which is still up to
+	 * date, or null if there are none
+	 */
+	public Entry poll() {
+		Entry entry;
+		while ((entry = queue.poll()) != null) {
+			if (entry.stamp == stamps[entry.pair]) {
+				liveCounts[entry.pair]--;
+				live--;
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return Number of entries in the heap, including old ones
+	 */
+	public int size() {
+		return queue.size();
+	}
+
+	/**
+	 * @return Number of up to date entries in the heap
+	 */
+	public int getLive() {
+		return live;
+	}
+
+
+	/**
+	 * Lists the moves from parent to child as the network is now: remove
+	 * and reverse if there is an edge, or add if they aren't joined. Adds
+	 * and reverses are only listed if they give a parent that is allowed.
+	 *
+	 * Whether they are allowed only depends on the families of the two
+	 * nodes, so is checked again whenever their moves are.
+	 */
+	private void addMoves(List<Move> moves, int parentIndex, int childIndex) {
+		int pair = getPair(parentIndex, childIndex);
+		if (listedIn[pair] == listing) {
+			return;
+		}
+		listedIn[pair] = listing;
+
+		// The pair's queued entries are out of date from now
+		stamps[pair]++;
+		live -= liveCounts[pair];
+		liveCounts[pair] = 0;
+
+		Node parent = bayonet.getNodeByIndex(parentIndex);
+		Node child = bayonet.getNodeByIndex(childIndex);
+		if (bayonet.getEdge(parent, child) != null) {
+			moves.add(new Move(Move.Type.REMOVE, parent, child));
+			if (parentLimits.canAdd(child, parent)) {
+				moves.add(new Move(Move.Type.REVERSE, parent, child));
+			}
+		} else if (bayonet.getEdge(child, parent) == null && parentLimits.canAdd(parent, child)) {
+			moves.add(new Move(Move.Type.ADD, parent, child));
+		}
+	}
+
+	private int getPair(int parentIndex, int childIndex) {
+		return parentIndex * numNodes + childIndex;
+	}
+}
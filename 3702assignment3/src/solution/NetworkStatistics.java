@@ -0,0 +1,53 @@
+package solution;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything worked out from a network's family counts which is written
+ * out or printed: the probability tables of its nodes and the likelihood
+ * of the data. A network holding the data gives these, as do counts made
+ * while streaming it, so both are written the same way.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public interface NetworkStatistics {
+
+	/**
+	 * @return Every node of the network, with its parents
+	 */
+	Map<String, Node> getNodes();
+
+	/**
+	 * @param node - The node to get all probabilities for
+	 * @return The probability the node is true for each combination of its
+	 * parents, with the first parent as the highest bit
+	 */
+	List<Double> getAllProbabilities(Node node);
+
+	/**
+	 * @return The log likelihood of the data under the network
+	 */
+	double calculateLogLikelihood();
+
+	/**
+	 * @return The likelihood of the data under the network
+	 */
+	double calculateMaximumLikelihood();
+
+	/**
+	 * The probability a node is true for one combination of its parents.
+	 * A combination which never occurs gets 1/2 rather than dividing by
+	 * zero.
+	 *
+	 * @param trueCount - Rows with the combination where the node is true
+	 * @param total - Rows with the combination
+	 * @return The probability
+	 */
+	static double probability(long trueCount, long total) {
+		if (total == 0) {
+			return 0.5;
+		}
+		return (double) trueCount / total;
+	}
+}
@@ -1,6 +1,7 @@
 package solution;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -16,6 +17,9 @@ public class Node {
 	
 	/** The list of parents of this node **/
 	private List<Node> parents;
+	
+	/** Indexes of the parents of this node, for quick lookups **/
+	private BitSet parentIndexes;
 
 	/**
 	 * Node constructor.
@@ -25,6 +29,7 @@ public class Node {
 	public Node(String name) {
 		this.name = name;
 		parents = new ArrayList<Node>();
+		parentIndexes = new BitSet();
 	}
 	
 	/** 
@@ -34,8 +39,9 @@ public class Node {
 	 */
 	public void addParent(Node parent) {
 		// Check given Node is not already a parent
-		if (parent != null && !parents.contains(parent)) {
+		if (parent != null && !hasParent(parent)) {
 			parents.add(parent);
+			parentIndexes.set(parent.getIndex());
 		}
 	}
 	
@@ -48,8 +54,14 @@ public class Node {
 	 * @param parent
 	 */
 	public void removeParent(Node parent) {
-		if(parents.contains(parent)) {
-			parents.remove(parent);
+		if(hasParent(parent)) {
+			for (int i = 0; i < parents.size(); i++) {
+				if (parents.get(i).getIndex() == parent.getIndex()) {
+					parents.remove(i);
+					break;
+				}
+			}
+			parentIndexes.clear(parent.getIndex());
 		}
 	}
 	
@@ -58,6 +70,7 @@ public class Node {
 	 */
 	public void removeAllParents() {
 		parents.clear();
+		parentIndexes.clear();
 	}
 	
 	/**
@@ -69,6 +82,16 @@ public class Node {
 		return (parents.size() != 0);
 	}
 	
+	/**
+	 * Returns if the given node is a parent of this node
+	 * 
+	 * @param parent - Node to check
+	 * @return true if it is a parent, else false
+	 */
+	public boolean hasParent(Node parent) {
+		return parentIndexes.get(parent.getIndex());
+	}
+	
 	public void setIndex(int index) {
 		this.index = index;
 	}
@@ -83,20 +106,12 @@ public class Node {
 	}
 	
 	/**
-	 * Returns the list of ancestors for this node
+	 * Returns the indexes of the parents of this node
 	 * 
-	 * @return List of all nodes which are ancestors
+	 * @return Set of parent indexes. Do not modify.
 	 */
-	public List<Node> getAncestors() {
-		List<Node> ancestors = new ArrayList<Node>();
-		ancestors.add(this);
-		
-		// recursion
-		for (Node parent : parents) {
-			ancestors.addAll(parent.getAncestors());
-		}
-		
-		return ancestors;
+	public BitSet getParentIndexes() {
+		return parentIndexes;
 	}
 	
 	/**
@@ -107,8 +122,10 @@ public class Node {
 	}
 	
 	/**
-	 * This equals method pays no heed to parents, or to the index, when
-	 * making its comparisons.
+	 * This equals method pays no heed to parents when making its
+	 * comparisons. Each node's index is its column in the data, so nodes
+	 * with the same index are the same node (possibly in different
+	 * copies of the network).
 	 * 
 	 * @param node
 	 * @return
@@ -118,11 +135,8 @@ public class Node {
 		if (this.equals((Object)node)) {
 			return true;
 		}
-		// Check if same name (ignore parents)
-		if (this.getName().equals(node.getName())) {
-			return true;
-		}
-		return false;
+		// Check if same index (ignore parents)
+		return this.index == node.getIndex();
 	}
 	
 	/**
@@ -1,14 +1,18 @@
 package solution;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.function.Supplier;
 
 /**
  * Static class used to read in the files and initialise the appropriate
@@ -17,7 +21,10 @@ import java.util.Scanner;
  * @author Cameron Darragh Addison Gourluck
  */
 public class Reader extends Global {
-	public final static int MODE = DEBUG; // Current debug mode
+	private final static Logger LOG = getLogger(Reader.class);
+	
+	/** Rows held in memory at once when streaming a file **/
+	public final static int CHUNK_ROWS = 1 << 16;
 	
 	/**
 	 * Opens and reads the file at the given path, returning the Bayesian
@@ -29,12 +36,12 @@ public class Reader extends Global {
 	 */
 	public static BayesianNetwork readFile(String filePath) {
 		BayesianNetwork network = null;
-		BufferedReader br = null;
+		DataTokenizer br = null;
 		
 		log(INFO, "Loading file at " + filePath);
 		
 		try {
-			br = new BufferedReader(new FileReader(filePath));
+			br = new DataTokenizer(new FileInputStream(filePath));
 		} catch (FileNotFoundException e) {
 			e.printStackTrace();
 			log(ERROR, "Error opening file.");
@@ -46,6 +53,7 @@ public class Reader extends Global {
 		} catch (IOException e) {
 			e.printStackTrace();
 			log(ERROR, "Error reading data.");
+			System.exit(1);
 		}
 		
 		try {
@@ -63,12 +71,12 @@ public class Reader extends Global {
 	
 	public static BayesianNetwork readFileNoParents(String filePath) {
 		BayesianNetwork network = null;
-		BufferedReader br = null;
+		DataTokenizer br = null;
 		
 		log(INFO, "Loading file at " + filePath);
 		
 		try {
-			br = new BufferedReader(new FileReader(filePath));
+			br = new DataTokenizer(new FileInputStream(filePath));
 		} catch (FileNotFoundException e) {
 			e.printStackTrace();
 			log(ERROR, "Error opening file.");
@@ -80,6 +88,7 @@ public class Reader extends Global {
 		} catch (IOException e) {
 			e.printStackTrace();
 			log(ERROR, "Error reading data.");
+			System.exit(1);
 		}
 		
 		try {
@@ -96,37 +105,153 @@ public class Reader extends Global {
 	
 	
 	/**
-	 * Extracts the data from the buffered reader, and returns it as a Bayesian
+	 * Opens and reads the file at the given path (which must give node
+	 * parents) without ever holding all of its data, counting each node's
+	 * family a chunk of rows at a time.
+	 * 
+	 * @param filePath - path to file to read
+	 * @return counts of every family in the file's network
+	 */
+	public static StreamingStatistics streamFile(String filePath) {
+		StreamingStatistics statistics = null;
+		DataTokenizer br = null;
+		
+		log(INFO, "Streaming file at " + filePath);
+		
+		try {
+			br = new DataTokenizer(new FileInputStream(filePath));
+		} catch (FileNotFoundException e) {
+			e.printStackTrace();
+			log(ERROR, "Error opening file.");
+			System.exit(1);
+		}
+		
+		try {
+			int numNodes = br.nextInt();
+			int numData = br.nextInt();
+			br.nextLine();
+			
+			log(INFO, numNodes + " nodes, with " + numData + " lines of data.");
+			
+			statistics = new StreamingStatistics(readNodes(br, numNodes));
+			
+			for (int row = 0; row < numData; row += CHUNK_ROWS) {
+				int chunkRows = Math.min(CHUNK_ROWS, numData - row);
+				statistics.addChunk(readChunk(br, numNodes, chunkRows));
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			log(ERROR, "Error reading data.");
+			System.exit(1);
+		}
+		
+		try {
+			br.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+			log(ERROR, "Error closing file.");
+			System.exit(1);
+		}
+		
+		log(INFO, "Finished streaming from file.");
+		return statistics;
+	}
+	
+	
+	/**
+	 * Opens a binary data file (see Writer.writeBinary), mapping its data
+	 * into memory rather than reading it.
+	 * 
+	 * @param filePath - path to file to read
+	 * @param withParents - false to ignore any parents in the file
+	 * @return a new network representation of that file
+	 */
+	public static BayesianNetwork readBinaryFile(String filePath, boolean withParents) {
+		BayesianNetwork network = null;
+		RandomAccessFile file = null;
+		
+		log(INFO, "Mapping file at " + filePath);
+		
+		try {
+			file = new RandomAccessFile(filePath, "r");
+		} catch (FileNotFoundException e) {
+			e.printStackTrace();
+			log(ERROR, "Error opening file.");
+			System.exit(1);
+		}
+		
+		try {
+			network = extractBinaryData(file.getChannel(), withParents);
+		} catch (IOException e) {
+			e.printStackTrace();
+			log(ERROR, "Error reading data.");
+			System.exit(1);
+		}
+		
+		// The mapped data stays readable once the file is closed
+		try {
+			file.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+			log(ERROR, "Error closing file.");
+			System.exit(1);
+		}
+		
+		log(INFO, "Finished mapping file.");
+		return network;
+	}
+	
+	
+	/**
+	 * Extracts the data from the tokenizer, and returns it as a Bayesian
 	 * Network.
 	 * 
-	 * @param br - Already opened buffered reader
+	 * @param br - Tokenizer over an already opened file
 	 * @return Bayesian network
 	 * @throws IOException
 	 */
-	private static BayesianNetwork extractData(BufferedReader br)
+	private static BayesianNetwork extractData(DataTokenizer br)
 			throws IOException {
-		String line;
-		Scanner s;
 		
-		line = br.readLine();
-		s = new Scanner(line);
-		int numNodes = s.nextInt();
-		int numData = s.nextInt();
-		s.close();
+		int numNodes = br.nextInt();
+		int numData = br.nextInt();
+		br.nextLine();
 		
 		log(INFO, numNodes + " nodes, with " + numData + " lines of data.");
 		
+		Map<String, Node> nodes = readNodes(br, numNodes);
+		
+		Dataset data = readDataset(br, numNodes, numData);
+		
+		// Create Bayesian Network
+		return new BayesianNetwork(nodes, data);
+	}
+	
+	
+	/**
+	 * Reads the line of each node, giving its name and parents.
+	 * 
+	 * @param br - Tokenizer positioned at the first node
+	 * @param numNodes - Number of nodes
+	 * @return Every node, by name, with its parents set
+	 * @throws IOException
+	 */
+	private static Map<String, Node> readNodes(DataTokenizer br, int numNodes)
+			throws IOException {
+		
 		// Initialise hashmap so that it won't have to rehash.
 		Map<String, Node> nodes = new HashMap<String, Node>((int) Math.ceil(numNodes / 0.75));
 		
+		// Parents are added once every node has its index, since nodes
+		// keep track of their parents by index
+		List<Node> children = new ArrayList<Node>(numNodes);
+		List<Node> parents = new ArrayList<Node>();
+		
 		// Read in and setup each node
 		for (int i = 0; i < numNodes; i++) {
-			line = br.readLine();
+			String name = br.nextToken();
 			
-			s = new Scanner(line);
-			String name = s.next();
-			
-			log(DEBUG, "\nAdding: " + name);
+			log(DEBUG, () -> "\nAdding: " + name);
 			// Create or set current node, and its index
 			Node current;
 			
@@ -138,73 +263,46 @@ public class Reader extends Global {
 			current = nodes.get(name);
 			current.setIndex(i);
 			
-			// Add parents
-			while (s.hasNext()) {
-				String parent = s.next();
-				log(DEBUG, "  Parent: " + parent);
-				if (nodes.containsKey(parent)) {
-					// parent already exists, add it
-					current.addParent(nodes.get(parent));
-				} else {
-					// parent doesn't exist, create and add it
+			// Find parents
+			while (!br.atEndOfLine()) {
+				String parent = br.nextToken();
+				log(DEBUG, () -> "  Parent: " + parent);
+				if (!nodes.containsKey(parent)) {
+					// parent doesn't exist, create it
 					nodes.put(parent, new Node(parent));
-					current.addParent(nodes.get(parent));
 				}
+				children.add(current);
+				parents.add(nodes.get(parent));
 			}
+			br.nextLine();
 		}
 		
-		List<List<Boolean>> data = new ArrayList<List<Boolean>>(numData);
-		// Read in each data point
-		for (int i = 0; i < numData; i++) {
-			line = br.readLine();
-			s = new Scanner(line);
-			
-			List<Boolean> row = new ArrayList<Boolean>(numNodes);
-			
-			for (int j = 0; j < numNodes; j++) {
-				if (s.nextInt() == 1) {
-					row.add(true);
-				} else {
-					row.add(false);
-				}
-			}
-			data.add(row);
+		// Add parents
+		for (int i = 0; i < children.size(); i++) {
+			children.get(i).addParent(parents.get(i));
 		}
 		
-		log(DEBUG, "\nRead data as: ");
-		for (List<Boolean> d : data) {
-			log(DEBUG, d.toString().replaceAll("false", "0").replaceAll("true", "1"));
-		}
-		
-		// Create Bayesian Network
-		return new BayesianNetwork(nodes, data);
+		return nodes;
 	}
 	
 	
 	
 	/**
-	 * Extracts the data from the buffered reader, and returns it as a Bayesian
+	 * Extracts the data from the tokenizer, and returns it as a Bayesian
 	 * Network.
 	 * 
 	 * This one is when no parent relations are given
 	 * 
-	 * @param br - Already opened buffered reader
+	 * @param br - Tokenizer over an already opened file
 	 * @return Bayesian network
 	 * @throws IOException
 	 */
-	private static BayesianNetwork extractDataNoParents(BufferedReader br)
+	private static BayesianNetwork extractDataNoParents(DataTokenizer br)
 			throws IOException {
-		String line;
-		Scanner s;
-		
-		line = br.readLine();
-		s = new Scanner(line);
-		int numNodes = s.nextInt();
-		int numData = s.nextInt();
-		s.close();
 		
-		line = br.readLine();
-		s = new Scanner(line);
+		int numNodes = br.nextInt();
+		int numData = br.nextInt();
+		br.nextLine();
 		
 		log(INFO, numNodes + " nodes, with " + numData + " lines of data.");
 		
@@ -213,11 +311,11 @@ public class Reader extends Global {
 		
 		int i = 0;
 		// Read in and setup each node
-		while(s.hasNext()) {
+		while(!br.atEndOfLine()) {
 			
-			String name = s.next();
+			String name = br.nextToken();
 			
-			log(DEBUG, "\nAdding: " + name);
+			log(DEBUG, () -> "\nAdding: " + name);
 			// Create or set current node, and its index
 			Node current;
 			
@@ -230,41 +328,144 @@ public class Reader extends Global {
 			current.setIndex(i);
 			i++;
 		}
-		s.close();
+		br.nextLine();
 		
-		List<List<Boolean>> data = new ArrayList<List<Boolean>>(numData);
-		// Read in each data point
-		for (i = 0; i < numData; i++) {
-			line = br.readLine();
-			s = new Scanner(line);
+		Dataset data = readDataset(br, numNodes, numData);
+		
+		log(DEBUG, () -> "Size of nodes is: " + nodes.size());
+		
+		// Create Bayesian Network
+		return new BayesianNetwork(nodes, data);
+	}
+	
+	
+	/**
+	 * Reads the header and node list of a binary data file, and maps its
+	 * columns.
+	 * 
+	 * @param channel - Channel over an already opened file
+	 * @param withParents - false to ignore any parents in the file
+	 * @return Bayesian network
+	 * @throws IOException
+	 */
+	private static BayesianNetwork extractBinaryData(FileChannel channel, boolean withParents)
+			throws IOException {
+		
+		ByteBuffer header = ByteBuffer.allocate(MappedDataset.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		while (header.hasRemaining()) {
+			if (channel.read(header) < 0) {
+				throw new EOFException("Data file is too short for its header");
+			}
+		}
+		header.flip();
+		
+		if (header.getInt() != MappedDataset.MAGIC) {
+			throw new IOException("Not a binary data file");
+		}
+		int version = header.getInt();
+		if (version != MappedDataset.VERSION) {
+			throw new IOException("Unsupported binary data version " + version);
+		}
+		int numNodes = header.getInt();
+		int numData = header.getInt();
+		long dataOffset = header.getLong();
+		
+		log(INFO, numNodes + " nodes, with " + numData + " lines of data.");
+		
+		ByteBuffer nodeList = channel.map(FileChannel.MapMode.READ_ONLY,
+				MappedDataset.HEADER_SIZE, dataOffset - MappedDataset.HEADER_SIZE)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		
+		// Initialise hashmap so that it won't have to rehash.
+		Map<String, Node> nodes = new HashMap<String, Node>((int) Math.ceil(numNodes / 0.75));
+		Node[] byIndex = new Node[numNodes];
+		int[][] parents = new int[numNodes][];
+		
+		for (int i = 0; i < numNodes; i++) {
+			byte[] name = new byte[nodeList.getShort() & 0xffff];
+			nodeList.get(name);
 			
-			List<Boolean> row = new ArrayList<Boolean>(numNodes);
+			Node current = new Node(new String(name, "UTF-8"));
+			current.setIndex(i);
+			nodes.put(current.getName(), current);
+			byIndex[i] = current;
 			
-			for (int j = 0; j < numNodes; j++) {
-				if (s.nextInt() == 1) {
-					row.add(true);
-				} else {
-					row.add(false);
-				}
+			parents[i] = new int[nodeList.getInt()];
+			for (int j = 0; j < parents[i].length; j++) {
+				parents[i][j] = nodeList.getInt();
 			}
-			data.add(row);
 		}
 		
-		log(DEBUG, "\nRead data as: ");
-		for (List<Boolean> d : data) {
-			log(DEBUG, d.toString().replaceAll("false", "0").replaceAll("true", "1"));
+		if (withParents) {
+			for (int i = 0; i < numNodes; i++) {
+				for (int parent : parents[i]) {
+					byIndex[i].addParent(byIndex[parent]);
+				}
+			}
 		}
 		
-		log(DEBUG, "Size of nodes is: " + nodes.size());
+		Dataset data = new MappedDataset(channel, dataOffset, numNodes, numData);
 		
 		// Create Bayesian Network
 		return new BayesianNetwork(nodes, data);
 	}
 	
 	
-	private static void log(int mode, String str) {
-		if (MODE >= mode) {
-			System.out.println(str);
+	/**
+	 * Reads the rows of 0s and 1s straight into a packed data table.
+	 * 
+	 * @param br - Tokenizer positioned at the first row
+	 * @param numNodes - Number of values in each row
+	 * @param numData - Number of rows
+	 * @return The data table
+	 * @throws IOException
+	 */
+	private static Dataset readDataset(DataTokenizer br, int numNodes, int numData)
+			throws IOException {
+		
+		Dataset data = readChunk(br, numNodes, numData);
+		
+		log(DEBUG, "\nRead data as: ");
+		if (LOG.isEnabled(DEBUG)) {
+			for (int i = 0; i < numData; i++) {
+				log(DEBUG, data.rowToString(i));
+			}
+		}
+		
+		return data;
+	}
+	
+	
+	/**
+	 * Reads the next rows of 0s and 1s into a packed data table.
+	 * 
+	 * @param br - Tokenizer positioned at the first row to read
+	 * @param numNodes - Number of values in each row
+	 * @param numRows - Number of rows to read
+	 * @return The rows read
+	 * @throws IOException
+	 */
+	private static Dataset readChunk(DataTokenizer br, int numNodes, int numRows)
+			throws IOException {
+		
+		HeapDataset data = new HeapDataset(numNodes, numRows);
+		// Read in each data point
+		for (int i = 0; i < numRows; i++) {
+			for (int j = 0; j < numNodes; j++) {
+				if (br.nextBit()) {
+					data.set(i, j, true);
+				}
+			}
 		}
+		return data;
+	}
+	
+	
+	private static void log(int mode, String str) {
+		LOG.log(mode, str);
+	}
+	
+	private static void log(int mode, Supplier<String> message) {
+		LOG.log(mode, message);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package solution;
+
+/**
+ * A decomposable network score: the score of a network is the sum of the
+ * scores of its families (each node with its parents), plus a constant.
+ *
+ * A family is scored only from its counts, so search can score a move by
+ * rescoring just the families it changes, and a family's score can be
+ * cached by its node and parent set.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public interface ScoringFunction {
+
+	/**
+	 * @param familyCounts - Counts of the family, as from Dataset.countFamily
+	 * @param numRows - Number of rows in the data
+	 * @return The family's part of the score
+	 */
+	double scoreFamily(int[] familyCounts, int numRows);
+
+	/**
+	 * @param numRows - Number of rows in the data
+	 * @return The part of the score which doesn't depend on the structure
+	 */
+	default double getConstant(int numRows) {
+		return 0;
+	}
+
+	/**
+	 * @param name - ll, bic, aic or bdeu
+	 * @return A scoring function with its default settings
+	 * @throws IllegalArgumentException if there is no function by that name
+	 */
+	static ScoringFunction forName(String name) {
+		switch (name.toLowerCase()) {
+			case "ll":
+				return new LogLikelihoodScore();
+			case "bic":
+				return new BICScore();
+			case "aic":
+				return new AICScore();
+			case "bdeu":
+				return new BDeuScore();
+			default:
+				throw new IllegalArgumentException("Unknown scoring function " + name);
+		}
+	}
+}
@@ -0,0 +1,942 @@
+package solution;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Anytime structure search: greedy hill climbing from a starting network,
+ * making the best move that keeps a valid DAG each iteration. The move can
+ * also be the first found which improves the score, or taken from a queue
+ * which only rescores the moves the last move affected, see Selection.
+ * Nodes can be limited to a number of parents, and to parents from a few
+ * candidates each, see CandidateParents.
+ *
+ * A climb stops when no move improves the score by more than the minimum
+ * improvement. Optionally it can carry on past that with a tabu list of
+ * recent moves, and be followed by restarts from random changes to the
+ * best network, run in parallel when there are enough to fill the
+ * threads. The search stops when its time limit, iteration limit or
+ * cancel comes first, and always returns the best network found so far.
+ * Listeners are told of each new best network as it is found, such as to
+ * write a snapshot of it to a file.
+ *
+ * Without an AD-tree, the families moves would give are counted in
+ * batches on a CountingKernel before the moves are scored, so each batch
+ * shares its passes over the data.
+ *
+ * A search is set up once and can then be run on any number of networks,
+ * one at a time.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class Search extends Global {
+	private final static Logger LOG = getLogger(Search.class);
+
+	/** Default time limit, just under the assignment's three minutes **/
+	public final static long DEFAULT_TIME_LIMIT = 175 * 1000;
+
+	/** Defaults for tabu search and restarts **/
+	public final static int DEFAULT_PATIENCE = 20;
+	public final static int DEFAULT_PERTURBATION = 4;
+
+	/** Moves scored between checks of the time limit and cancel **/
+	private final static int CHECK_INTERVAL = 64;
+
+	/**
+	 * How each iteration picks its move: the best of every move, the first
+	 * found which improves the score, or the best from a queue where only
+	 * moves touching the last move's families are scored again.
+	 */
+	public enum Selection {
+		BEST, FIRST_IMPROVEMENT, PRIORITY_QUEUE
+	}
+
+	/**
+	 * Told of new best networks, one at a time, on whichever thread found
+	 * them. A network beaten before it could be told of is skipped. The
+	 * network may be kept but mustn't be changed.
+	 */
+	public interface Listener {
+		void improved(BayesianNetwork bayonet, double score, int iteration);
+	}
+
+	private final int threads;
+	private long timeLimit = DEFAULT_TIME_LIMIT;
+	private int maxIterations = Integer.MAX_VALUE;
+	private double minImprovement = 0;
+	private Selection selection = Selection.BEST;
+
+	/** Most parents a node may be given, and how many candidate parents
+	 * each node has by mutual information, or 0 for every node **/
+	private int maxParents = Integer.MAX_VALUE;
+	private int candidates = 0;
+	private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+	/** How many recent moves can't be undone, and how many moves a climb
+	 * may make without beating its best before it gives up **/
+	private int tabuTenure = 0;
+	private int patience = DEFAULT_PATIENCE;
+
+	/** How many times to climb again, from how many random moves away
+	 * from the best network so far **/
+	private int restarts = 0;
+	private int perturbation = DEFAULT_PERTURBATION;
+	private long seed = 3702;
+
+	/** When the current search must stop by **/
+	private volatile long deadline;
+	private volatile boolean cancelled;
+
+	/** Moves made by the current search, over every climb **/
+	private final AtomicInteger moves = new AtomicInteger();
+
+	/** Which parents the current search may add **/
+	private CandidateParents parentLimits;
+
+	/** Counts the families of moves for the current search, or null if
+	 * its network counts with an AD-tree **/
+	private CountingKernel kernel;
+
+	/** Best network found by the current search, and its score, which
+	 * can be read without the lock to turn away worse networks early **/
+	private BayesianNetwork best;
+	private volatile double bestScore;
+
+
+	/**
+	 * @param threads - Number of threads to score possible moves with, at
+	 * least 1
+	 * @throws IllegalArgumentException if threads is less than 1
+	 */
+	public Search(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Need at least one thread to search with, not " + threads);
+		}
+		this.threads = threads;
+	}
+
+
+	/**
+	 * Searches from the given network, which is changed along the way.
+	 *
+	 * @param bayonet - The network to start from
+	 * @return the best network found, a copy sharing the start's data
+	 */
+	public BayesianNetwork search(BayesianNetwork bayonet) {
+		cancelled = false;
+		moves.set(0);
+		deadline = System.currentTimeMillis() + timeLimit;
+		if (deadline < 0) {
+			deadline = Long.MAX_VALUE; // No time limit
+		}
+		if (candidates > 0) {
+			parentLimits = new CandidateParents(bayonet.getData(), maxParents, candidates);
+		} else {
+			parentLimits = new CandidateParents(maxParents);
+		}
+		synchronized (this) {
+			best = new BayesianNetwork(bayonet);
+			bestScore = bayonet.calculateScore();
+		}
+
+		// Only start other threads if searching in parallel
+		ExecutorService executor = null;
+		if (threads > 1) {
+			log(INFO, "Searching with " + threads + " threads");
+			executor = Executors.newFixedThreadPool(threads);
+		}
+		if (bayonet.getADTree() == null) {
+			kernel = new CountingKernel(threads);
+		}
+
+		try {
+			climb(bayonet, executor);
+			if (restarts > 0) {
+				restart(executor);
+			}
+
+			BayesianNetwork result = getBest();
+			log(INFO, result.getCountCache().toString());
+			if (result.getADTree() != null) {
+				log(INFO, result.getADTree().toString());
+			}
+			return result;
+
+		} finally {
+			if (executor != null) {
+				executor.shutdown();
+			}
+			if (kernel != null) {
+				kernel.shutdown();
+				kernel = null;
+			}
+		}
+	}
+
+
+	/**
+	 * Climbs from the given network, making the best move each iteration,
+	 * or with FIRST_IMPROVEMENT the first move found which improves it.
+	 *
+	 * Without a tabu list this stops once no move improves the score. With
+	 * one, the best move that isn't tabu is made even if it is worse, and
+	 * undoing a recent move is tabu unless it would beat the best network
+	 * of this climb. The climb then stops once patience moves have been
+	 * made without beating it.
+	 *
+	 * Without a tabu list or listeners, each move beats the last and no
+	 * one needs telling of it, so the network is only offered as the best
+	 * once, when the climb stops.
+	 *
+	 * @param bayonet - The network to climb from, changed in place
+	 * @param executor - Executor to score moves on, or null to score on
+	 * this thread
+	 */
+	private void climb(BayesianNetwork bayonet, ExecutorService executor) {
+		double currentScore = bayonet.calculateScore();
+		double climbBest = currentScore;
+		int sinceBest = 0;
+		Deque<Long> tabu = new ArrayDeque<Long>();
+
+		// Whether offering each better network can wait for the end of the climb
+		boolean deferOffer = tabuTenure == 0 && minImprovement >= 0 && listeners.isEmpty();
+		boolean unoffered = false;
+		int iteration = 0;
+
+		// Families whose moves need scoring again, which starts as every node
+		MoveQueue queue = null;
+		BitSet changed = new BitSet();
+		if (selection == Selection.PRIORITY_QUEUE) {
+			queue = new MoveQueue(bayonet, parentLimits);
+			changed.set(0, bayonet.getNodes().size());
+		}
+
+		// Where first improvement starts looking, so it doesn't favour the same moves
+		int offset = 0;
+
+		while (true) {
+
+			if (moves.get() >= maxIterations) {
+				log(INFO, "Iteration limit reached");
+				break;
+			}
+			if (isStopped()) {
+				log(INFO, cancelled ? "Search cancelled" : "Time limit reached");
+				break;
+			}
+
+			if (LOG.isEnabled(DEBUG)) {
+				log(DEBUG, "\n\n");
+
+				for (Map.Entry<String, Node> nodeElement : bayonet.getNodes().entrySet()) {
+
+					Node node = nodeElement.getValue();
+
+					String debugStr = node.getName() + ": ";
+					for(Node ancestor : bayonet.getAncestors(node)) {
+						debugStr += ancestor.toString();
+					}
+					log(DEBUG, debugStr + "\n");
+				}
+			}
+
+			Move made = null;
+			double change = 0;
+
+			if (queue != null) {
+				// Only moves touching the families changed by the last move are rescored
+				if (!changed.isEmpty()) {
+					List<Move> rescored = queue.getMoves(changed);
+					double[] changes = scoreMoves(bayonet, rescored, executor);
+					if (changes == null) {
+						continue; // Stopped part way, which is logged on the next pass
+					}
+					queue.push(rescored, changes);
+					changed.clear();
+				}
+
+				// Moves which weren't made stay queued, as they may be made later
+				List<MoveQueue.Entry> skipped = new ArrayList<MoveQueue.Entry>();
+				MoveQueue.Entry entry;
+				while ((entry = queue.poll()) != null) {
+					skipped.add(entry);
+					if (!isWorthTrying(currentScore, entry.getChange())) {
+						break;
+					}
+					if (tryMove(bayonet, entry.getMove(), currentScore, entry.getChange(), climbBest, tabu)) {
+						skipped.remove(skipped.size() - 1);
+						made = entry.getMove();
+						change = entry.getChange();
+						break;
+					}
+				}
+				queue.putBack(skipped);
+
+			} else {
+				// Possible actions: create an edge (each pair of nodes), remove an edge from list, change direction of edge
+				List<Move> possible = getPossibleMoves(bayonet);
+				double[] changes = null;
+
+				// Score moves a block at a time, making the first that improves the score
+				if (selection == Selection.FIRST_IMPROVEMENT && !possible.isEmpty()) {
+					Collections.rotate(possible, -(offset % possible.size()));
+					changes = new double[possible.size()];
+
+					int blockSize = (executor == null) ? 1 : threads * CHECK_INTERVAL;
+					for (int from = 0; from < possible.size() && made == null; from += blockSize) {
+						List<Move> block = possible.subList(from, Math.min(from + blockSize, possible.size()));
+						double[] blockChanges = scoreMoves(bayonet, block, executor);
+						if (blockChanges == null) {
+							changes = null;
+							break;
+						}
+						System.arraycopy(blockChanges, 0, changes, from, blockChanges.length);
+
+						for (int i = 0; i < blockChanges.length; i++) {
+							if (currentScore + blockChanges[i] > currentScore + minImprovement
+									&& tryMove(bayonet, block.get(i), currentScore, blockChanges[i], climbBest, tabu)) {
+								made = block.get(i);
+								change = blockChanges[i];
+								offset += from + i + 1;
+								break;
+							}
+						}
+					}
+
+					// With no move improving the score, only a tabu search goes on
+					if (made == null && tabuTenure == 0) {
+						changes = null;
+					}
+
+				} else {
+					// Each action only changes the families of the nodes it touches, so its
+					// score is found from the change to those families alone.
+					changes = scoreMoves(bayonet, possible, executor);
+				}
+
+				if (made == null && changes != null) {
+					final double[] sortChanges = changes;
+
+					// Try actions from best to worst, keeping the first which gives a valid DAG.
+					// Ties go to the action found first, so the result doesn't depend on threads.
+					Integer[] order = new Integer[possible.size()];
+					for (int i = 0; i < order.length; i++) {
+						order[i] = i;
+					}
+					Arrays.sort(order, new Comparator<Integer>() {
+						@Override
+						public int compare(Integer move1, Integer move2) {
+							int result = Double.compare(sortChanges[move2], sortChanges[move1]);
+							return (result != 0) ? result : move1.compareTo(move2);
+						}
+					});
+
+					for (int i : order) {
+						if (!isWorthTrying(currentScore, changes[i])) {
+							break;
+						}
+						if (tryMove(bayonet, possible.get(i), currentScore, changes[i], climbBest, tabu)) {
+							made = possible.get(i);
+							change = changes[i];
+							break;
+						}
+					}
+				}
+			}
+
+			// If network didn't change, it is the best that can be found from here
+			if (made == null) {
+				if (isStopped()) {
+					continue; // Logged on the next pass
+				}
+				log(INFO, "Optimal network found");
+				break;
+			}
+
+			currentScore += change;
+			iteration = moves.incrementAndGet();
+			if (tabuTenure > 0) {
+				tabu.addLast(getInverseKey(made));
+				if (tabu.size() > tabuTenure) {
+					tabu.removeFirst();
+				}
+			}
+
+			// A reverse changes the families of both nodes, others only the child's
+			changed.set(made.getChild().getIndex());
+			if (made.getType() == Move.Type.REVERSE) {
+				changed.set(made.getParent().getIndex());
+			}
+
+			if (currentScore > climbBest) {
+				climbBest = currentScore;
+				sinceBest = 0;
+				log(DEBUG, "New best network!");
+				if (deferOffer) {
+					unoffered = true;
+				} else {
+					offer(bayonet, currentScore, iteration);
+				}
+			} else if (++sinceBest > patience) {
+				log(INFO, "No better network in " + patience + " moves");
+				break;
+			}
+		}
+
+		// Every move improved on the last, so the climb ended on its best network
+		if (unoffered) {
+			offer(bayonet, currentScore, iteration);
+		}
+	}
+
+	/**
+	 * @return false if no move with this change or worse is worth trying:
+	 * it doesn't improve the score by enough, and only a tabu search makes
+	 * worse moves
+	 */
+	private boolean isWorthTrying(double currentScore, double change) {
+		return currentScore + change > currentScore + minImprovement || tabuTenure > 0;
+	}
+
+	/**
+	 * Makes the move in place, if it isn't tabu and won't make a cycle.
+	 *
+	 * @param bayonet - The network to make the move on
+	 * @param move - The move
+	 * @param currentScore - The score of the network now
+	 * @param change - How much the move changes the score
+	 * @param climbBest - Best score of this climb, which a tabu move must beat
+	 * @param tabu - Keys of moves which undo recent moves
+	 * @return true if the move was made
+	 */
+	private boolean tryMove(BayesianNetwork bayonet, final Move move, double currentScore,
+			double change, double climbBest, Deque<Long> tabu) {
+		double score = currentScore + change;
+
+		// Recent moves can't be undone, unless that beats this climb's best
+		if (tabu.contains(getKey(move.getType(), move.getParent(), move.getChild()))
+				&& !(score > climbBest + minImprovement)) {
+			return false;
+		}
+
+		if (LOG.isEnabled(DEBUG)) {
+			log(DEBUG, "Old score is " + currentScore + ", new score is " + score);
+		}
+
+		if (!move.createsCycle(bayonet) && move.apply(bayonet)) {
+			if (score > currentScore) {
+				log(DEBUG, () -> "New best score! " + move);
+			} else {
+				log(DEBUG, () -> "Made worse move " + move);
+			}
+			return true;
+		}
+		log(DEBUG, () -> "Tried invalid move " + move);
+		return false;
+	}
+
+
+	/**
+	 * Climbs again from random changes to the best network so far, until
+	 * every restart is done or the search stops. With at least as many
+	 * restarts as threads, the restarts run side by side, one per thread,
+	 * each starting from the best network found by any of them. With fewer,
+	 * some threads would sit idle, so the restarts run one at a time with
+	 * their moves scored on every thread instead.
+	 *
+	 * @param executor - Executor to climb on, or null to climb on this thread
+	 */
+	private void restart(final ExecutorService executor) {
+		final AtomicInteger nextRestart = new AtomicInteger();
+
+		if (executor == null || restarts < threads) {
+			runRestarts(nextRestart, executor);
+			return;
+		}
+
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(threads);
+		for (int i = 0; i < threads; i++) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					runRestarts(nextRestart, null);
+					return null;
+				}
+			});
+		}
+
+		try {
+			for (Future<Void> result : executor.invokeAll(tasks)) {
+				result.get();
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			log(ERROR, "Interrupted while restarting.");
+			System.exit(1);
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+			log(ERROR, "Error restarting.");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Takes restarts until there are none left or the search stops.
+	 *
+	 * @param nextRestart - Number of the next restart to take
+	 * @param executor - Executor to score moves on, or null to score on
+	 * this thread
+	 */
+	private void runRestarts(AtomicInteger nextRestart, ExecutorService executor) {
+		int restart;
+		while ((restart = nextRestart.getAndIncrement()) < restarts
+				&& !isStopped() && moves.get() < maxIterations) {
+
+			BayesianNetwork start = new BayesianNetwork(getBest());
+			perturb(start, new Random(seed + restart));
+			if (LOG.isEnabled(INFO)) {
+				log(INFO, "Restart " + restart + " from score " + start.calculateScore());
+			}
+
+			climb(start, executor);
+		}
+	}
+
+	/**
+	 * Makes random moves which keep the network a valid DAG.
+	 *
+	 * @param bayonet - The network to change in place
+	 * @param random - Where to take the moves from
+	 */
+	private void perturb(BayesianNetwork bayonet, Random random) {
+		for (int i = 0; i < perturbation; i++) {
+			List<Move> possible = getPossibleMoves(bayonet);
+
+			// Most moves are valid, so only a few are tried before one is made
+			for (int tries = 0; tries < possible.size(); tries++) {
+				Move move = possible.get(random.nextInt(possible.size()));
+				if (!move.createsCycle(bayonet) && move.apply(bayonet)) {
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Keeps a copy of the network if it is the best found by any climb,
+	 * and tells the listeners.
+	 *
+	 * The copy is made and the listeners told (which may write a file)
+	 * without holding the search's lock, so other climbs only wait on it
+	 * to swap the best network in. Listeners are told one at a time, and
+	 * not at all of a network beaten while they were busy.
+	 */
+	private void offer(BayesianNetwork bayonet, double score, int iteration) {
+		if (!(score > bestScore)) {
+			return;
+		}
+
+		BayesianNetwork copy = new BayesianNetwork(bayonet);
+		synchronized (this) {
+			if (!(score > bestScore)) {
+				return;
+			}
+			best = copy;
+			bestScore = score;
+		}
+
+		if (listeners.isEmpty()) {
+			return;
+		}
+		synchronized (listeners) {
+			if (score < bestScore) {
+				return; // A better network was found since, which the listeners will be told of
+			}
+			for (Listener listener : listeners) {
+				listener.improved(copy, score, iteration);
+			}
+		}
+	}
+
+	private synchronized BayesianNetwork getBest() {
+		return best;
+	}
+
+
+	/**
+	 * Stops the current search as soon as possible, from any thread. The
+	 * search still returns the best network found before it stopped.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * @param timeLimit - Longest a search may run for in milliseconds, or
+	 * Long.MAX_VALUE for no limit
+	 */
+	public void setTimeLimit(long timeLimit) {
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * @param maxIterations - Most moves a search may make
+	 */
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * @param minImprovement - How much a move must improve the score by to
+	 * be made. The search stops once no move improves it by more
+	 */
+	public void setMinImprovement(double minImprovement) {
+		this.minImprovement = minImprovement;
+	}
+
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Writes the best network so far to a file with Writer.writeDAG as the
+	 * search goes, at most once per interval. Each snapshot replaces the
+	 * file whole, so it is never left half written.
+	 *
+	 * @param filepath - Path of the file to write
+	 * @param interval - Least time between snapshots in milliseconds
+	 * @return the listener writing the snapshots, to remove it with
+	 */
+	public Listener addSnapshots(final String filepath, final long interval) {
+		Listener snapshots = new Listener() {
+			private long lastWritten = System.currentTimeMillis();
+
+			@Override
+			public void improved(BayesianNetwork bayonet, double score, int iteration) {
+				long now = System.currentTimeMillis();
+				if (now - lastWritten < interval) {
+					return;
+				}
+				lastWritten = now;
+
+				File temp = new File(filepath + ".tmp");
+				try {
+					Writer.writeDAG(temp.getPath(), bayonet);
+					Files.move(temp.toPath(), new File(filepath).toPath(),
+							StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					log(INFO, "Wrote snapshot of iteration " + iteration + " to " + filepath);
+				} catch (IOException e) {
+					// Losing a snapshot shouldn't lose the search
+					e.printStackTrace();
+					log(ERROR, "Error writing snapshot!");
+				}
+			}
+		};
+		addListener(snapshots);
+		return snapshots;
+	}
+
+	/**
+	 * @param selection - How each iteration picks its move
+	 */
+	public void setSelection(Selection selection) {
+		this.selection = selection;
+	}
+
+	/**
+	 * @param maxParents - Most parents search may give a node. Nodes which
+	 * already have more keep them, unless search removes them
+	 */
+	public void setMaxParents(int maxParents) {
+		this.maxParents = maxParents;
+	}
+
+	/**
+	 * @param candidates - How many candidate parents each node has, chosen
+	 * by mutual information before searching, or 0 to allow every node
+	 */
+	public void setCandidates(int candidates) {
+		this.candidates = candidates;
+	}
+
+	/**
+	 * @param tabuTenure - How many recent moves can't be undone, or 0 to
+	 * only make moves which improve the score
+	 */
+	public void setTabuTenure(int tabuTenure) {
+		this.tabuTenure = tabuTenure;
+	}
+
+	/**
+	 * @param patience - How many moves a tabu search may make without
+	 * finding a better network before it stops
+	 */
+	public void setPatience(int patience) {
+		this.patience = patience;
+	}
+
+	/**
+	 * @param restarts - How many times to climb again after the first
+	 * climb stops, each from a random change to the best network so far
+	 */
+	public void setRestarts(int restarts) {
+		this.restarts = restarts;
+	}
+
+	/**
+	 * @param perturbation - How many random moves each restart makes
+	 */
+	public void setPerturbation(int perturbation) {
+		this.perturbation = perturbation;
+	}
+
+	/**
+	 * @param seed - Seed for the random moves of restarts. Restarts made
+	 * one at a time always make the same moves for the same seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @return Moves made by the last search, over every climb
+	 */
+	public int getIterations() {
+		return moves.get();
+	}
+
+
+	/**
+	 * @return true if the search must stop, because it was cancelled or
+	 * is out of time
+	 */
+	private boolean isStopped() {
+		return cancelled || System.currentTimeMillis() >= deadline;
+	}
+
+
+	/**
+	 * @return A number naming a move, the same for any move object
+	 */
+	private static long getKey(Move.Type type, Node parent, Node child) {
+		return ((long) type.ordinal() << 40) | ((long) parent.getIndex() << 20) | child.getIndex();
+	}
+
+	/**
+	 * @return The key of the move which would undo the given move
+	 */
+	private static long getInverseKey(Move move) {
+		switch (move.getType()) {
+			case ADD:
+				return getKey(Move.Type.REMOVE, move.getParent(), move.getChild());
+			case REMOVE:
+				return getKey(Move.Type.ADD, move.getParent(), move.getChild());
+			default:
+				return getKey(Move.Type.REVERSE, move.getChild(), move.getParent());
+		}
+	}
+
+
+	/**
+	 * Lists every action that could be taken on the network, in a fixed
+	 * order: adding each pair of nodes, then removing each edge, then
+	 * reversing each edge. Adds and reverses only give nodes parents they
+	 * are allowed.
+	 *
+	 * @param bayonet
+	 * @return
+	 */
+	private List<Move> getPossibleMoves(BayesianNetwork bayonet) {
+		List<Move> moves = new ArrayList<Move>();
+		Map<String, Node> nodes = bayonet.getNodes();
+		List<Edge> edges = bayonet.getEdges();
+
+		// Add action, for each pair of nodes
+		for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
+			Node node1 = nodeElement.getValue();
+
+			for (Map.Entry<String, Node> nodeElement2 : nodes.entrySet()) {
+				Node node2 = nodeElement2.getValue();
+
+				// If nodes are not the same, and not already joined
+				if(!node1.equals(node2) && bayonet.getEdge(node1, node2) == null
+						&& bayonet.getEdge(node2, node1) == null && parentLimits.canAdd(node1, node2)) {
+					moves.add(new Move(Move.Type.ADD, node1, node2));
+				}
+			}
+		}
+
+		// Remove action, for each edge
+		for (Edge edge : edges) {
+			moves.add(new Move(Move.Type.REMOVE, edge.getParent(), edge.getChild()));
+		}
+
+		// Reverse action, for each edge whose child may become its parent's parent
+		for (Edge edge : edges) {
+			if (parentLimits.canAdd(edge.getChild(), edge.getParent())) {
+				moves.add(new Move(Move.Type.REVERSE, edge.getParent(), edge.getChild()));
+			}
+		}
+
+		return moves;
+	}
+
+
+	/**
+	 * Calculates the score change of every move. If an executor is given,
+	 * the moves are split into one block per thread and scored in parallel.
+	 * With a kernel, their families are counted in batches first, so only
+	 * the scores need looking up.
+	 *
+	 * @param bayonet - Network to score the moves on
+	 * @param moves - Moves to score
+	 * @param executor - Executor to score on, or null to score on this thread
+	 * @return The score change of each move, or null if the search was
+	 * stopped before every move was scored
+	 */
+	private double[] scoreMoves(final BayesianNetwork bayonet, final List<Move> moves,
+			ExecutorService executor) {
+
+		final double[] changes = new double[moves.size()];
+
+		if (kernel != null && !scoreFamilies(bayonet, moves)) {
+			return null;
+		}
+		if (executor == null) {
+			return scoreBlock(bayonet, moves, changes, 0, changes.length) ? changes : null;
+		}
+
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>(threads);
+		int blockSize = (changes.length + threads - 1) / threads;
+		for (int start = 0; start < changes.length; start += blockSize) {
+			final int from = start;
+			final int to = Math.min(start + blockSize, changes.length);
+
+			tasks.add(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					return scoreBlock(bayonet, moves, changes, from, to);
+				}
+			});
+		}
+
+		boolean finished = true;
+		try {
+			for (Future<Boolean> result : executor.invokeAll(tasks)) {
+				finished &= result.get();
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			log(ERROR, "Interrupted while scoring moves.");
+			System.exit(1);
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+			log(ERROR, "Error scoring moves.");
+			System.exit(1);
+		}
+
+		return finished ? changes : null;
+	}
+
+	/**
+	 * Scores the families every move would give, and the families they
+	 * replace, on the kernel, a batch at a time between checks of whether
+	 * the search has stopped.
+	 *
+	 * @return false if the search stopped before they were all scored
+	 */
+	private boolean scoreFamilies(BayesianNetwork bayonet, List<Move> moves) {
+		int batchSize = threads * CHECK_INTERVAL;
+		for (int from = 0; from < moves.size(); from += batchSize) {
+			if (isStopped()) {
+				return false;
+			}
+
+			List<Node> children = new ArrayList<Node>();
+			List<List<Node>> parentLists = new ArrayList<List<Node>>();
+			for (Move move : moves.subList(from, Math.min(from + batchSize, moves.size()))) {
+				Node parent = move.getParent();
+				Node child = move.getChild();
+				children.add(child);
+				parentLists.add(child.getParents());
+
+				// Adds give the child a parent, removes and reverses take one away
+				List<Node> newParents = new ArrayList<Node>(child.getParents());
+				if (move.getType() == Move.Type.ADD) {
+					newParents.add(parent);
+				} else {
+					newParents.remove(parent);
+				}
+				children.add(child);
+				parentLists.add(newParents);
+
+				// A reverse also gives the parent the child as a parent
+				if (move.getType() == Move.Type.REVERSE) {
+					List<Node> reversed = new ArrayList<Node>(parent.getParents());
+					reversed.add(child);
+					children.add(parent);
+					parentLists.add(parent.getParents());
+					children.add(parent);
+					parentLists.add(reversed);
+				}
+			}
+
+			bayonet.scoreFamilies(kernel, children, parentLists);
+		}
+		return true;
+	}
+
+	/**
+	 * Scores moves from (inclusive) to (exclusive), checking every so
+	 * often whether the search has stopped.
+	 *
+	 * @return false if the search stopped before they were all scored
+	 */
+	private boolean scoreBlock(BayesianNetwork bayonet, List<Move> moves, double[] changes,
+			int from, int to) {
+		for (int i = from; i < to; i++) {
+			if ((i - from) % CHECK_INTERVAL == 0 && isStopped()) {
+				return false;
+			}
+			changes[i] = moves.get(i).calculateScoreChange(bayonet);
+		}
+		return true;
+	}
+
+
+	private static void log(int mode, String str) {
+		LOG.log(mode, str);
+	}
+
+	private static void log(int mode, Supplier<String> message) {
+		LOG.log(mode, message);
+	}
+}
@@ -0,0 +1,192 @@
+package solution;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Counts of a network's families, built up a chunk of rows at a time so
+ * the data never has to be held in memory all at once.
+ *
+ * Every node's own family is counted, along with any other (candidate)
+ * families added before the data is streamed in. Once every row has been
+ * added, the same probabilities and likelihoods as BayesianNetwork can be
+ * worked out from the counts alone.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class StreamingStatistics extends Global implements NetworkStatistics {
+	private final static Logger LOG = getLogger(StreamingStatistics.class);
+
+	/** The nodes counted for, with their parents **/
+	private final Map<String, Node> nodes;
+
+	/** Contingency table of each family counted **/
+	private final Map<Family, Table> tables;
+
+	/** Number of rows added so far **/
+	private long numRows;
+
+
+	/**
+	 * @param nodes - Nodes of the network, with their parents already set
+	 */
+	public StreamingStatistics(Map<String, Node> nodes) {
+		this.nodes = nodes;
+		this.tables = new HashMap<Family, Table>();
+		for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
+			Node node = nodeElement.getValue();
+			addFamily(node, node.getParents());
+		}
+	}
+
+	/**
+	 * Also counts a family other than the network's own, such as one a
+	 * search might move to. Must be added before any rows.
+	 *
+	 * @param node - The child of the family
+	 * @param parents - Its parents
+	 */
+	public void addFamily(Node node, List<Node> parents) {
+		if (numRows > 0) {
+			throw new IllegalStateException("Families must be added before the data");
+		}
+
+		Family family = new Family(node, parents);
+		if (!tables.containsKey(family)) {
+			tables.put(family, new Table(node, parents));
+		}
+	}
+
+	/**
+	 * Adds the counts of a chunk of rows to every family's table.
+	 *
+	 * @param chunk - The next rows of the data
+	 */
+	public void addChunk(Dataset chunk) {
+		for (Table table : tables.values()) {
+			int[] chunkCounts = chunk.countFamily(table.child, table.parents);
+			for (int i = 0; i < chunkCounts.length; i++) {
+				table.counts[i] += chunkCounts[i];
+			}
+		}
+		numRows += chunk.getNumRows();
+
+		log(DEBUG, () -> "Counted " + numRows + " rows");
+	}
+
+	@Override
+	public List<Double> getAllProbabilities(Node node) {
+		long[] familyCounts = getTable(node, node.getParents()).counts;
+
+		List<Double> probabilities = new ArrayList<Double>(familyCounts.length / 2);
+		for (int combination = 0; combination < familyCounts.length / 2; combination++) {
+			long trueCount = familyCounts[2 * combination + 1];
+			probabilities.add(NetworkStatistics.probability(trueCount,
+					familyCounts[2 * combination] + trueCount));
+		}
+
+		return probabilities;
+	}
+
+	/**
+	 * Returns the log likelihood of the data for one node given a set of
+	 * parents, which must have been counted. The order of the parents
+	 * makes no difference.
+	 *
+	 * @param node - Node to score
+	 * @param parents - The parents of the node
+	 * @return The log likelihood of the node's column in the data
+	 */
+	public double getFamilyLogLikelihood(Node node, List<Node> parents) {
+		long[] familyCounts = getTable(node, parents).counts;
+
+		double logLikelihood = 0;
+		for (int combination = 0; combination < familyCounts.length / 2; combination++) {
+			long falseCount = familyCounts[2 * combination];
+			long trueCount = familyCounts[2 * combination + 1];
+			long total = falseCount + trueCount;
+
+			logLikelihood += LogLikelihoodScore.countLogProbability(trueCount, total);
+			logLikelihood += LogLikelihoodScore.countLogProbability(falseCount, total);
+		}
+
+		return logLikelihood;
+	}
+
+	/**
+	 * @return The log likelihood of every row added, under the network
+	 */
+	@Override
+	public double calculateLogLikelihood() {
+		double logLikelihood = 0;
+
+		for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
+			Node node = nodeElement.getValue();
+			logLikelihood += getFamilyLogLikelihood(node, node.getParents());
+		}
+
+		return logLikelihood;
+	}
+
+	/**
+	 * The rows themselves are gone by now, so rather than multiplying each
+	 * row's probability this is the exponential of the log likelihood. It
+	 * is the same value, to within rounding.
+	 *
+	 * @return The likelihood of every row added, under the network
+	 */
+	@Override
+	public double calculateMaximumLikelihood() {
+		return Math.exp(calculateLogLikelihood());
+	}
+
+	@Override
+	public Map<String, Node> getNodes() {
+		return nodes;
+	}
+
+	public long getNumRows() {
+		return numRows;
+	}
+
+
+	private Table getTable(Node node, List<Node> parents) {
+		Table table = tables.get(new Family(node, parents));
+		if (table == null) {
+			throw new IllegalArgumentException("Family was never counted: " + node + " " + parents);
+		}
+		return table;
+	}
+
+
+	/**
+	 * Counts of one family, in the same order as Dataset.countFamily
+	 * for the parents in the order they were given.
+	 */
+	private static class Table {
+		private final int child;
+		private final int[] parents;
+		private final long[] counts;
+
+		Table(Node node, List<Node> parentList) {
+			child = node.getIndex();
+			parents = new int[parentList.size()];
+			for (int p = 0; p < parents.length; p++) {
+				parents[p] = parentList.get(p).getIndex();
+			}
+			counts = new long[2 << parents.length];
+		}
+	}
+
+
+	private static void log(int mode, String str) {
+		LOG.log(mode, str);
+	}
+
+	private static void log(int mode, Supplier<String> message) {
+		LOG.log(mode, message);
+	}
+}
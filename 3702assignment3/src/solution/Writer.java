@@ -1,7 +1,11 @@
 package solution;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * Static class writes data to text files.
@@ -9,13 +13,18 @@ import java.util.*;
  * @author Cameron Darragh Addison Gourluck
  */
 public class Writer extends Global {
-	public final static int MODE = INFO; // Current debug mode
+	private final static Logger LOG = getLogger(Writer.class);
 	
 	
-	public static void writeCPT(String filename, BayesianNetwork bayonet) throws IOException {
+	/**
+	 * Writes each node with its parents and probability table, then the
+	 * log likelihood, from a network holding the data or from counts made
+	 * while streaming it.
+	 */
+	public static void writeCPT(String filepath, NetworkStatistics statistics) throws IOException {
 		String ls = System.getProperty("line.separator");
-		Map<String, Node> nodes = bayonet.getNodes();
-		FileWriter writer = new FileWriter("solutions/" + filename);
+		Map<String, Node> nodes = statistics.getNodes();
+		FileWriter writer = new FileWriter(filepath);
 		
 		// For every node in the network
 		for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
@@ -23,7 +32,7 @@ public class Writer extends Global {
 			Node node = nodeElement.getValue();
 			String line = "";
 			
-			log(INFO, "\nWriting node: " + node.getName());
+			log(DEBUG, () -> "\nWriting node: " + node.getName());
 			
 			// Get name of node
 			line += node.getName();
@@ -31,7 +40,7 @@ public class Writer extends Global {
 			// Add names of parents to line
 			List<Node> parents = node.getParents();
 			for (Node parent: parents) {
-				log(INFO, "  Parent: " + parent.getName());
+				log(DEBUG, () -> "  Parent: " + parent.getName());
 				line += " " + parent.getName();
 			}
 			
@@ -39,7 +48,7 @@ public class Writer extends Global {
 			writer.write(line + ls);
 			
 			// Get conditional probability for each parent combination
-			List<Double> probabilities = bayonet.getAllProbabilities(node);
+			List<Double> probabilities = statistics.getAllProbabilities(node);
 			
 			// Put all probabilities in a string
 			String probabilitiesLine = "";
@@ -53,20 +62,20 @@ public class Writer extends Global {
 			
 			// Write line to file
 			writer.write(probabilitiesLine + ls);
-			log(INFO, "Finished Writing node");
+			log(DEBUG, "Finished Writing node");
 		}
 		
-		writer.write(bayonet.calculateLogLikelihood() + ls);
+		writer.write(statistics.calculateLogLikelihood() + ls);
 		
 		log(INFO, "Finished Writing!");
 		
 		writer.close();
 	}
 	
-	public static void writeDAG(String filename, BayesianNetwork bayonet) throws IOException {
+	public static void writeDAG(String filepath, BayesianNetwork bayonet) throws IOException {
 		String ls = System.getProperty("line.separator");
 		Map<String, Node> nodes = bayonet.getNodes();
-		FileWriter writer = new FileWriter("solutions/" + filename);
+		FileWriter writer = new FileWriter(filepath);
 		
 		// Print name and parents of each node
 		for (Map.Entry<String, Node> nodeElement : nodes.entrySet()) {
@@ -74,7 +83,7 @@ public class Writer extends Global {
 			Node node = nodeElement.getValue();
 			String line = "";
 			
-			log(INFO, "\nWriting node: " + node.getName());
+			log(DEBUG, () -> "\nWriting node: " + node.getName());
 			
 			// Get name of node
 			line += node.getName();
@@ -82,7 +91,7 @@ public class Writer extends Global {
 			// Add names of parents to line
 			List<Node> parents = node.getParents();
 			for (Node parent: parents) {
-				log(INFO, "  Parent: " + parent.getName());
+				log(DEBUG, () -> "  Parent: " + parent.getName());
 				line += " " + parent.getName();
 			}
 			
@@ -96,7 +105,7 @@ public class Writer extends Global {
 			Node node = nodeElement.getValue();
 			String line = "";
 			
-			log(INFO, "\nWriting node: " + node.getName());
+			log(DEBUG, () -> "\nWriting node: " + node.getName());
 			
 			// Get name of node
 			line += node.getName();
@@ -104,7 +113,7 @@ public class Writer extends Global {
 			// Add names of parents to line
 			List<Node> parents = node.getParents();
 			for (Node parent: parents) {
-				log(INFO, "  Parent: " + parent.getName());
+				log(DEBUG, () -> "  Parent: " + parent.getName());
 				line += " " + parent.getName();
 			}
 			
@@ -136,9 +145,92 @@ public class Writer extends Global {
 	}
 	
 	
-	private static void log(int mode, String str) {
-		if (MODE >= mode) {
-			System.out.println(str);
+	/**
+	 * Writes a network's nodes, parents and data to a binary data file,
+	 * which Reader.readBinaryFile can map straight into memory.
+	 * 
+	 * Everything is little endian. The file is a header of magic number,
+	 * version, number of nodes, number of rows (ints) and where the columns
+	 * start (long). Then for each node in index order, its name (short
+	 * length then UTF-8 bytes), number of parents (int) and parent indexes
+	 * (ints). Then, 8 byte aligned, each node's column of packed longs.
+	 * 
+	 * @param filepath - Path of the file to write
+	 * @param bayonet - Network to write
+	 * @throws IOException
+	 */
+	public static void writeBinary(String filepath, BayesianNetwork bayonet) throws IOException {
+		Dataset data = bayonet.getData();
+		int numNodes = data.getNumVariables();
+		int numWords = data.getNumWords();
+		
+		// Node list, so its size (and where the columns start) is known
+		ByteArrayOutputStream nodeBytes = new ByteArrayOutputStream();
+		DataOutputStream nodeList = new DataOutputStream(nodeBytes);
+		for (int i = 0; i < numNodes; i++) {
+			Node node = bayonet.getNodeByIndex(i);
+			byte[] name = node.getName().getBytes("UTF-8");
+			nodeList.writeShort(Short.reverseBytes((short) name.length));
+			nodeList.write(name);
+			
+			List<Node> parents = node.getParents();
+			nodeList.writeInt(Integer.reverseBytes(parents.size()));
+			for (Node parent : parents) {
+				nodeList.writeInt(Integer.reverseBytes(parent.getIndex()));
+			}
 		}
+		nodeList.close();
+		
+		long dataOffset = (MappedDataset.HEADER_SIZE + nodeBytes.size() + 7) & ~7L;
+		
+		FileOutputStream out = new FileOutputStream(filepath);
+		FileChannel channel = out.getChannel();
+		try {
+			ByteBuffer header = ByteBuffer.allocate((int) dataOffset).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MappedDataset.MAGIC);
+			header.putInt(MappedDataset.VERSION);
+			header.putInt(numNodes);
+			header.putInt(data.getNumRows());
+			header.putLong(dataOffset);
+			header.put(nodeBytes.toByteArray());
+			header.position(0);
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			
+			// Columns, a block of words at a time
+			ByteBuffer block = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+			for (int v = 0; v < numNodes; v++) {
+				for (int w = 0; w < numWords; w++) {
+					if (!block.hasRemaining()) {
+						writeBlock(channel, block);
+					}
+					block.putLong(data.getWord(v, w));
+				}
+			}
+			writeBlock(channel, block);
+		} finally {
+			out.close();
+		}
+		
+		log(INFO, "Wrote " + numNodes + " nodes and " + data.getNumRows() + " rows to " + filepath);
+	}
+	
+	
+	private static void writeBlock(FileChannel channel, ByteBuffer block) throws IOException {
+		block.flip();
+		while (block.hasRemaining()) {
+			channel.write(block);
+		}
+		block.clear();
+	}
+	
+	
+	private static void log(int mode, String str) {
+		LOG.log(mode, str);
+	}
+
+	private static void log(int mode, Supplier<String> message) {
+		LOG.log(mode, message);
 	}
-}
\ No newline at end of file
+}
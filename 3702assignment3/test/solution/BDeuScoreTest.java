@@ -0,0 +1,39 @@
+package solution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the log gamma approximation behind the BDeu score against exact
+ * values, on both sides of the reflection at 0.5.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class BDeuScoreTest {
+	private final static double TOLERANCE = 1e-10;
+
+	@Test
+	public void logGammaOfIntegersIsLogFactorial() {
+		assertEquals(0, BDeuScore.logGamma(1), TOLERANCE);
+		assertEquals(0, BDeuScore.logGamma(2), TOLERANCE);
+		assertEquals(Math.log(2), BDeuScore.logGamma(3), TOLERANCE);
+		assertEquals(Math.log(24), BDeuScore.logGamma(5), TOLERANCE);
+		assertEquals(Math.log(362880), BDeuScore.logGamma(10), TOLERANCE);
+	}
+
+	@Test
+	public void logGammaOfHalves() {
+		// Gamma(1/2) = sqrt(pi), Gamma(5/2) = 3/4 sqrt(pi)
+		assertEquals(0.5 * Math.log(Math.PI), BDeuScore.logGamma(0.5), TOLERANCE);
+		assertEquals(Math.log(0.75 * Math.sqrt(Math.PI)), BDeuScore.logGamma(2.5), TOLERANCE);
+	}
+
+	@Test
+	public void logGammaBelowHalfUsesReflection() {
+		// Gamma(1/4) = 3.625609908221908..., Gamma(1/10) = 9.513507698668731...
+		assertEquals(Math.log(3.6256099082219083), BDeuScore.logGamma(0.25), TOLERANCE);
+		assertEquals(Math.log(9.5135076986687318), BDeuScore.logGamma(0.1), TOLERANCE);
+		assertEquals(Math.log(99.432585119150603), BDeuScore.logGamma(0.01), TOLERANCE);
+	}
+}
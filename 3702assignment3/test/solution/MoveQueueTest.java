@@ -0,0 +1,158 @@
+package solution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the move queue gives moves best first and drops out of date
+ * ones, and that searching with it finds the same network as scoring
+ * every move each iteration, on the assignment's data.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class MoveQueueTest {
+	private final static String SMALL_DATA = "data/noMissingData-d1.txt";
+	private final static String DATA = "data/noMissingData-d3.txt";
+
+	private BayesianNetwork bayonet;
+	private MoveQueue queue;
+
+	@BeforeAll
+	public static void quietLogging() {
+		Global.configureLogging("ERROR");
+	}
+
+	@BeforeEach
+	public void createQueue() {
+		bayonet = Main.createNoEdgeDAG(Reader.readFileNoParents(SMALL_DATA));
+		queue = new MoveQueue(bayonet, new CandidateParents(Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void pollsBestChangeFirst() {
+		List<Move> moves = queue.getMoves(allNodes());
+		double[] changes = new double[moves.size()];
+		for (int i = 0; i < changes.length; i++) {
+			changes[i] = (i * 7) % changes.length; // Every change different, out of order
+		}
+		queue.push(moves, changes);
+
+		double[] sorted = changes.clone();
+		Arrays.sort(sorted);
+		for (int i = sorted.length - 1; i >= 0; i--) {
+			assertEquals(sorted[i], queue.poll().getChange());
+		}
+		assertNull(queue.poll());
+	}
+
+	@Test
+	public void tiesGoToAddsThenLowestPair() {
+		Node a = bayonet.getNodeByIndex(0);
+		Node b = bayonet.getNodeByIndex(1);
+		Node c = bayonet.getNodeByIndex(2);
+		Move remove = new Move(Move.Type.REMOVE, a, b);
+		Move addLater = new Move(Move.Type.ADD, c, a);
+		Move addFirst = new Move(Move.Type.ADD, a, c);
+		queue.push(Arrays.asList(remove, addLater, addFirst), new double[] { 1, 1, 1 });
+
+		assertSame(addFirst, queue.poll().getMove());
+		assertSame(addLater, queue.poll().getMove());
+		assertSame(remove, queue.poll().getMove());
+	}
+
+	@Test
+	public void changedFamiliesMakeOldMovesStale() {
+		List<Move> moves = queue.getMoves(allNodes());
+		double[] changes = new double[moves.size()];
+		Arrays.fill(changes, 1);
+		queue.push(moves, changes);
+		assertEquals(moves.size(), queue.getLive());
+
+		// Every move touching node 0 is listed again, so its old entries are out of date
+		BitSet changed = new BitSet();
+		changed.set(0);
+		List<Move> rescored = queue.getMoves(changed);
+		assertEquals(moves.size() - rescored.size(), queue.getLive());
+
+		MoveQueue.Entry entry;
+		while ((entry = queue.poll()) != null) {
+			assertTrue(entry.getMove().getParent().getIndex() != 0
+					&& entry.getMove().getChild().getIndex() != 0);
+		}
+	}
+
+	@Test
+	public void putBackKeepsEntriesStillUpToDate() {
+		List<Move> moves = queue.getMoves(allNodes());
+		double[] changes = new double[moves.size()];
+		Arrays.fill(changes, 1);
+		queue.push(moves, changes);
+
+		List<MoveQueue.Entry> taken = new ArrayList<MoveQueue.Entry>();
+		taken.add(queue.poll());
+		taken.add(queue.poll());
+		queue.putBack(taken);
+		assertEquals(moves.size(), queue.getLive());
+	}
+
+	@Test
+	public void queueFindsSameNetworkAsBest() {
+		assertSameNetwork(new LogLikelihoodScore());
+	}
+
+	@Test
+	public void queueFindsSameNetworkAsBestWithBIC() {
+		assertSameNetwork(new BICScore());
+	}
+
+
+	private BitSet allNodes() {
+		BitSet all = new BitSet();
+		all.set(0, bayonet.getNodes().size());
+		return all;
+	}
+
+	private static void assertSameNetwork(ScoringFunction scoring) {
+		BayesianNetwork best = search(scoring, Search.Selection.BEST);
+		BayesianNetwork queue = search(scoring, Search.Selection.PRIORITY_QUEUE);
+
+		assertFalse(getEdges(best).isEmpty());
+		assertEquals(getEdges(best), getEdges(queue));
+		assertEquals(best.calculateScore(), queue.calculateScore(), 1e-6);
+	}
+
+	private static BayesianNetwork search(ScoringFunction scoring, Search.Selection selection) {
+		BayesianNetwork bayonet = Reader.readFileNoParents(DATA);
+		bayonet.setScoringFunction(scoring);
+
+		Search search = new Search(1);
+		search.setTimeLimit(Long.MAX_VALUE);
+		search.setSelection(selection);
+		return search.search(Main.createNoEdgeDAG(bayonet));
+	}
+
+	/**
+	 * @return Every edge as "parent child", in order
+	 */
+	private static Set<String> getEdges(BayesianNetwork bayonet) {
+		Set<String> edges = new TreeSet<String>();
+		for (Edge edge : bayonet.getEdges()) {
+			edges.add(edge.getParent().getName() + " " + edge.getChild().getName());
+		}
+		return edges;
+	}
+}
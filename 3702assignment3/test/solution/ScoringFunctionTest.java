@@ -0,0 +1,58 @@
+package solution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Scores one small family with each scoring function, against values
+ * worked out by hand.
+ *
+ * The family is a child with one parent over 6 rows. With the parent false
+ * the child is false 3 times and true once, and with the parent true the
+ * child is true twice.
+ *
+ * @author Cameron Darragh Addison Gourluck
+ */
+public class ScoringFunctionTest {
+	private final static double TOLERANCE = 1e-10;
+
+	private final static int[] COUNTS = { 3, 1, 0, 2 };
+	private final static int NUM_ROWS = 6;
+
+	/** 1 log(1/4) + 3 log(3/4) for the first combination, 2 log(1) for the second **/
+	private final static double LOG_LIKELIHOOD = Math.log(0.25) + 3 * Math.log(0.75);
+
+	@Test
+	public void logLikelihood() {
+		assertEquals(LOG_LIKELIHOOD, new LogLikelihoodScore().scoreFamily(COUNTS, NUM_ROWS), TOLERANCE);
+		assertEquals(-NUM_ROWS, new LogLikelihoodScore().getConstant(NUM_ROWS), TOLERANCE);
+	}
+
+	@Test
+	public void unseenCombinationsAddNothing() {
+		int[] counts = { 3, 1, 0, 2, 0, 0, 0, 0 };
+		assertEquals(LOG_LIKELIHOOD, LogLikelihoodScore.logLikelihood(counts), TOLERANCE);
+	}
+
+	@Test
+	public void bic() {
+		// One free parameter per parent combination, each costing log(6) / 2
+		assertEquals(LOG_LIKELIHOOD - Math.log(NUM_ROWS),
+				new BICScore().scoreFamily(COUNTS, NUM_ROWS), TOLERANCE);
+	}
+
+	@Test
+	public void aic() {
+		assertEquals(LOG_LIKELIHOOD - 2, new AICScore().scoreFamily(COUNTS, NUM_ROWS), TOLERANCE);
+	}
+
+	@Test
+	public void bdeu() {
+		// With an equivalent sample size of 1, each combination has prior 1/2
+		// and each value 1/4. Expanding the gamma functions, the first
+		// combination gives (45/256) / (105/16) = 3/112 and the second
+		// (5/16) / (3/4) = 5/12, so the family's probability is 5/448
+		assertEquals(Math.log(5.0 / 448), new BDeuScore().scoreFamily(COUNTS, NUM_ROWS), TOLERANCE);
+	}
+}